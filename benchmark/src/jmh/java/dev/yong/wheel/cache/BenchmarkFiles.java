@@ -0,0 +1,114 @@
+package dev.yong.wheel.cache;
+
+import android.app.ActivityThread;
+import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * 性能测试使用的临时目录及 Application
+ *
+ * @author coderyong
+ */
+final class BenchmarkFiles {
+
+    private static File sRoot;
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * 创建临时目录，测试结束后通过 {@link #delete(File)} 删除
+     */
+    static File createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory("wheel-" + prefix).toFile();
+    }
+
+    static void delete(File file) {
+        if (file == null) {
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * 安装 Application，{@link Cache#open(String)} 与 {@link DiskLruCache#getInstance()} 通过它获取缓存目录；
+     * 同一进程只安装一次，进程退出时删除
+     */
+    static synchronized File installApplication() throws IOException {
+        if (sRoot == null) {
+            final File root = createTempDir("app");
+            ActivityThread.setCurrentApplication(new BenchmarkApplication(root));
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    delete(root);
+                }
+            });
+            sRoot = root;
+        }
+        return sRoot;
+    }
+
+    static byte[] randomBytes(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    static String[] keys(String prefix, int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = prefix + "_" + i;
+        }
+        return keys;
+    }
+
+    /**
+     * 目录均位于临时目录下，只支持 {@link Cache.Engine#MAPPED}
+     */
+    private static final class BenchmarkApplication extends Application {
+
+        private final File mRoot;
+
+        private BenchmarkApplication(File root) {
+            mRoot = root;
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+
+        @Override
+        public SharedPreferences getSharedPreferences(String name, int mode) {
+            throw new UnsupportedOperationException("Use Cache.Engine.MAPPED in benchmarks");
+        }
+
+        @Override
+        public File getCacheDir() {
+            return new File(mRoot, "cache");
+        }
+
+        @Override
+        public File getExternalCacheDir() {
+            return new File(mRoot, "external-cache");
+        }
+
+        @Override
+        public File getFilesDir() {
+            return new File(mRoot, "files");
+        }
+    }
+}
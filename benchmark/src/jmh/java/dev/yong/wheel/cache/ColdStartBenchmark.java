@@ -0,0 +1,87 @@
+package dev.yong.wheel.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileCache} 冷启动时加载索引（重放日志、扫描分段）的耗时，每次测试都创建新的实例
+ *
+ * @author coderyong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class ColdStartBenchmark {
+
+    private static final int VALUE_SIZE = 128;
+    private static final int SEGMENT_THRESHOLD = 4 * 1024;
+
+    @Param({"10000", "100000"})
+    public int entries;
+
+    /**
+     * file：每条缓存单独的文件；segment：追加到分段文件
+     */
+    @Param({"file", "segment"})
+    public String storage;
+
+    private File mDir;
+    /**
+     * 本次测试加载的实例，每次测试后关闭，避免多个实例同时持有同一个日志
+     */
+    private FileCache mLoaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mDir = BenchmarkFiles.createTempDir("cold-start");
+        final FileCache cache = new FileCache(mDir, Long.MAX_VALUE, Integer.MAX_VALUE);
+        if ("segment".equals(storage)) {
+            cache.setSegmentThreshold(SEGMENT_THRESHOLD);
+        }
+        final byte[] value = BenchmarkFiles.randomBytes(VALUE_SIZE, VALUE_SIZE);
+        cache.batch(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < entries; i++) {
+                    cache.put("entry_" + i, value, -1, TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+        cache.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLoaded() {
+        if (mLoaded != null) {
+            mLoaded.close();
+            mLoaded = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFiles.delete(mDir);
+    }
+
+    @Benchmark
+    public FileCache load() {
+        mLoaded = new FileCache(mDir, Long.MAX_VALUE, Integer.MAX_VALUE);
+        return mLoaded;
+    }
+}
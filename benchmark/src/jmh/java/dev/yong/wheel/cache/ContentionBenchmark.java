@@ -0,0 +1,139 @@
+package dev.yong.wheel.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程读写竞争：每组 3 个读线程、1 个写线程同时访问同一个缓存实例，
+ * 可通过 -PjmhThreadGroups=读线程数,写线程数 调整
+ *
+ * @author coderyong
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ContentionBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+    private static final int VALUE_SIZE = 1024;
+
+    @Benchmark
+    @Group("fileCache")
+    @GroupThreads(3)
+    public byte[] fileCacheGet(FileCacheState state) {
+        return state.mCache.getByte(state.randomKey());
+    }
+
+    @Benchmark
+    @Group("fileCache")
+    @GroupThreads(1)
+    public void fileCachePut(FileCacheState state) {
+        state.mCache.put(state.randomKey(), state.mValue, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("cache")
+    @GroupThreads(3)
+    public Object cacheGet(CacheState state) {
+        return state.mCache.getSerializable(state.randomKey());
+    }
+
+    @Benchmark
+    @Group("cache")
+    @GroupThreads(1)
+    public void cachePut(CacheState state) {
+        state.mCache.putSerializable(state.randomKey(), state.mValue);
+    }
+
+    @State(Scope.Group)
+    public static class FileCacheState {
+
+        /**
+         * 并发模式下读取不加锁，访问顺序批量更新
+         */
+        @Param({"false", "true"})
+        public boolean concurrent;
+
+        private File mDir;
+        private FileCache mCache;
+        private String[] mKeys;
+        private byte[] mValue;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            mDir = BenchmarkFiles.createTempDir("contention");
+            mCache = new FileCache(mDir, Long.MAX_VALUE, Integer.MAX_VALUE, concurrent);
+            mKeys = BenchmarkFiles.keys("key", KEY_COUNT);
+            mValue = BenchmarkFiles.randomBytes(VALUE_SIZE, VALUE_SIZE);
+            for (String key : mKeys) {
+                mCache.put(key, mValue, -1, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            mCache.clear();
+            BenchmarkFiles.delete(mDir);
+        }
+
+        String randomKey() {
+            return mKeys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+        }
+    }
+
+    /**
+     * 经过 {@link Cache} 的内存缓存与文件缓存，内存缓存只能容纳一半数据，读取时部分命中内存
+     */
+    @State(Scope.Group)
+    public static class CacheState {
+
+        @Param({"false", "true"})
+        public boolean concurrent;
+
+        private Cache mCache;
+        private String[] mKeys;
+        private byte[] mValue;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            BenchmarkFiles.installApplication();
+            mCache = Cache.open("contention_" + concurrent, new CacheConfig()
+                    .setEngine(Cache.Engine.MAPPED)
+                    .setConcurrent(concurrent)
+                    .setMemorySize(KEY_COUNT / 2, new MemoryCache.Weigher() {
+                        @Override
+                        public int sizeOf(String key, Object value) {
+                            return 1;
+                        }
+                    }));
+            mKeys = BenchmarkFiles.keys("key", KEY_COUNT);
+            mValue = BenchmarkFiles.randomBytes(VALUE_SIZE, VALUE_SIZE);
+            for (String key : mKeys) {
+                mCache.putSerializable(key, mValue);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            mCache.close();
+        }
+
+        String randomKey() {
+            return mKeys[ThreadLocalRandom.current().nextInt(KEY_COUNT)];
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.yong.wheel.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DiskLruCache} 读写吞吐量，key 数量固定，写入均为覆盖
+ *
+ * @author coderyong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DiskLruCacheBenchmark {
+
+    private static final int KEY_COUNT = 256;
+    private static final int VALUE_SIZE = 16 * 1024;
+
+    private DiskLruCache mCache;
+    private String[] mUrls;
+    private byte[] mValue;
+    private final byte[] mBuffer = new byte[8192];
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkFiles.installApplication();
+        mCache = DiskLruCache.getInstance();
+        mCache.ready().get();
+        mUrls = BenchmarkFiles.keys("https://example.com/file", KEY_COUNT);
+        mValue = BenchmarkFiles.randomBytes(VALUE_SIZE, VALUE_SIZE);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            put();
+        }
+    }
+
+    @Benchmark
+    public File put() throws IOException {
+        DiskLruCache.Editor editor = mCache.edit(nextUrl());
+        if (editor == null) {
+            return null;
+        }
+        OutputStream out = editor.newOutputStream();
+        try {
+            out.write(mValue);
+        } finally {
+            out.close();
+        }
+        return editor.commit();
+    }
+
+    @Benchmark
+    public File get() {
+        return mCache.get(nextUrl());
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        DiskLruCache.Snapshot snapshot = mCache.getSnapshot(nextUrl());
+        if (snapshot == null) {
+            return -1;
+        }
+        long total = 0;
+        try {
+            InputStream in = snapshot.getInputStream();
+            int count;
+            while ((count = in.read(mBuffer)) != -1) {
+                total += count;
+            }
+        } finally {
+            snapshot.close();
+        }
+        return total;
+    }
+
+    private String nextUrl() {
+        String url = mUrls[mNext];
+        mNext = (mNext + 1) % KEY_COUNT;
+        return url;
+    }
+}
@@ -0,0 +1,121 @@
+package dev.yong.wheel.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容量已满时的写入吞吐量，每次写入新的 key 都会淘汰最久未访问的缓存
+ *
+ * @author coderyong
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EvictionBenchmark {
+
+    private static final int VALUE_SIZE = 16 * 1024;
+    private static final long MAX_SIZE = 4 * 1024 * 1024;
+    private static final int SEGMENT_THRESHOLD = 64 * 1024;
+
+    @Benchmark
+    public void fileCache(FileCacheState state) {
+        state.put();
+    }
+
+    @Benchmark
+    public File diskLruCache(DiskLruCacheState state) throws IOException {
+        return state.put();
+    }
+
+    @State(Scope.Benchmark)
+    public static class FileCacheState {
+
+        /**
+         * file：每条缓存单独的文件；segment：追加到分段文件
+         */
+        @Param({"file", "segment"})
+        public String storage;
+
+        private File mDir;
+        private FileCache mCache;
+        private byte[] mValue;
+        private long mNext;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            mDir = BenchmarkFiles.createTempDir("eviction");
+            mCache = new FileCache(mDir, MAX_SIZE, Integer.MAX_VALUE);
+            if ("segment".equals(storage)) {
+                mCache.setSegmentThreshold(SEGMENT_THRESHOLD);
+            }
+            mValue = BenchmarkFiles.randomBytes(VALUE_SIZE, VALUE_SIZE);
+            //先写满，测试过程中每次写入都需要淘汰
+            for (long i = 0; i < MAX_SIZE / VALUE_SIZE * 2; i++) {
+                put();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            mCache.clear();
+            BenchmarkFiles.delete(mDir);
+        }
+
+        void put() {
+            mCache.put("evict_" + mNext++, mValue, -1, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DiskLruCacheState {
+
+        private DiskLruCache mCache;
+        private long mMaxSize;
+        private byte[] mValue;
+        private long mNext;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            BenchmarkFiles.installApplication();
+            mCache = DiskLruCache.getInstance();
+            mCache.ready().get();
+            mMaxSize = mCache.getMaxSize();
+            mCache.setMaxSize(MAX_SIZE);
+            mValue = BenchmarkFiles.randomBytes(VALUE_SIZE, VALUE_SIZE);
+            for (long i = 0; i < MAX_SIZE / VALUE_SIZE * 2; i++) {
+                put();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            mCache.setMaxSize(mMaxSize);
+        }
+
+        File put() throws IOException {
+            DiskLruCache.Editor editor = mCache.edit("https://example.com/evict/" + mNext++);
+            if (editor == null) {
+                return null;
+            }
+            OutputStream out = editor.newOutputStream();
+            try {
+                out.write(mValue);
+            } finally {
+                out.close();
+            }
+            return editor.commit();
+        }
+    }
+}
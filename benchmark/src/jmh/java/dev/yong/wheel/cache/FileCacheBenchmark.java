@@ -0,0 +1,81 @@
+package dev.yong.wheel.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileCache} 单线程读写吞吐量，key 数量固定，写入均为覆盖
+ *
+ * @author coderyong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FileCacheBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+    private static final int SEGMENT_THRESHOLD = 64 * 1024;
+
+    @Param({"256", "16384"})
+    public int valueSize;
+
+    /**
+     * file：每条缓存单独的文件；segment：追加到分段文件
+     */
+    @Param({"file", "segment"})
+    public String storage;
+
+    private File mDir;
+    private FileCache mCache;
+    private byte[] mValue;
+    private String[] mKeys;
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mDir = BenchmarkFiles.createTempDir("file-cache");
+        mCache = new FileCache(mDir, Long.MAX_VALUE, Integer.MAX_VALUE);
+        if ("segment".equals(storage)) {
+            mCache.setSegmentThreshold(SEGMENT_THRESHOLD);
+        }
+        mValue = BenchmarkFiles.randomBytes(valueSize, valueSize);
+        mKeys = BenchmarkFiles.keys("key", KEY_COUNT);
+        for (String key : mKeys) {
+            mCache.put(key, mValue, -1, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mCache.clear();
+        BenchmarkFiles.delete(mDir);
+    }
+
+    @Benchmark
+    public void put() {
+        mCache.put(nextKey(), mValue, -1, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    public byte[] get() {
+        return mCache.getByte(nextKey());
+    }
+
+    private String nextKey() {
+        String key = mKeys[mNext];
+        mNext = (mNext + 1) % KEY_COUNT;
+        return key;
+    }
+}
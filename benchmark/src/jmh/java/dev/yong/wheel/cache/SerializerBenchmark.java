@@ -0,0 +1,83 @@
+package dev.yong.wheel.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各 {@link CacheSerializer} 的序列化与反序列化开销，数据为常见的接口响应结构（列表嵌套对象）
+ *
+ * @author coderyong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializerBenchmark {
+
+    @Param({"java", "binary", "gson"})
+    public String serializer;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private CacheSerializer<Object> mSerializer;
+    private HashMap<String, Object> mValue;
+    private byte[] mData;
+    private final ByteArrayOutputStream mOut = new ByteArrayOutputStream();
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        if ("java".equals(serializer)) {
+            mSerializer = (CacheSerializer<Object>) (CacheSerializer<?>) CacheSerializers.JAVA;
+        } else if ("binary".equals(serializer)) {
+            mSerializer = CacheSerializers.BINARY;
+        } else {
+            mSerializer = CacheSerializers.gson(HashMap.class);
+        }
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            HashMap<String, Object> item = new HashMap<>();
+            item.put("id", (long) i);
+            item.put("name", "item_" + i);
+            item.put("score", i * 0.5D);
+            item.put("enabled", i % 2 == 0);
+            List<Object> tags = new ArrayList<>();
+            tags.add("tag_" + i % 7);
+            tags.add("tag_" + i % 13);
+            item.put("tags", tags);
+            list.add(item);
+        }
+        mValue = new HashMap<>();
+        mValue.put("code", 200);
+        mValue.put("message", "success");
+        mValue.put("data", list);
+        mData = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        mOut.reset();
+        mSerializer.serialize(mValue, mOut);
+        return mOut.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        return mSerializer.deserialize(new ByteArrayInputStream(mData));
+    }
+}
@@ -0,0 +1,11 @@
+package android.annotation;
+
+/**
+ * 性能测试使用的 Android 替身
+ *
+ * @author coderyong
+ */
+public @interface SuppressLint {
+
+    String[] value();
+}
@@ -0,0 +1,25 @@
+package android.app;
+
+/**
+ * 性能测试使用的 Android 替身，缓存模块通过反射 {@link #currentApplication()} 获取 Context
+ *
+ * @author coderyong
+ */
+public final class ActivityThread {
+
+    private static volatile Application sApplication;
+
+    private ActivityThread() {
+    }
+
+    public static Application currentApplication() {
+        return sApplication;
+    }
+
+    /**
+     * 设置 {@link #currentApplication()} 返回的 Application，仅性能测试使用
+     */
+    public static void setCurrentApplication(Application application) {
+        sApplication = application;
+    }
+}
@@ -0,0 +1,11 @@
+package android.app;
+
+import android.content.Context;
+
+/**
+ * 性能测试使用的 Android 替身
+ *
+ * @author coderyong
+ */
+public abstract class Application extends Context {
+}
@@ -0,0 +1,15 @@
+package android.content;
+
+import android.content.res.Configuration;
+
+/**
+ * 性能测试使用的 Android 替身
+ *
+ * @author coderyong
+ */
+public interface ComponentCallbacks {
+
+    void onConfigurationChanged(Configuration newConfig);
+
+    void onLowMemory();
+}
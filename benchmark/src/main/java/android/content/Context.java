@@ -0,0 +1,23 @@
+package android.content;
+
+import java.io.File;
+
+/**
+ * 性能测试使用的 Android 替身，只保留缓存模块用到的方法
+ *
+ * @author coderyong
+ */
+public abstract class Context {
+
+    public static final int MODE_PRIVATE = 0;
+
+    public abstract Context getApplicationContext();
+
+    public abstract SharedPreferences getSharedPreferences(String name, int mode);
+
+    public abstract File getCacheDir();
+
+    public abstract File getExternalCacheDir();
+
+    public abstract File getFilesDir();
+}
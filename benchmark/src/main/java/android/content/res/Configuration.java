@@ -0,0 +1,9 @@
+package android.content.res;
+
+/**
+ * 性能测试使用的 Android 替身
+ *
+ * @author coderyong
+ */
+public class Configuration {
+}
@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * 性能测试使用的 Android 替身，消息直接在调用线程执行
+ *
+ * @author coderyong
+ */
+public class Handler {
+
+    public Handler(Looper looper) {
+    }
+
+    public final boolean post(Runnable r) {
+        r.run();
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package android.os;
+
+/**
+ * 性能测试使用的 Android 替身，JVM 中没有主线程消息循环
+ *
+ * @author coderyong
+ */
+public final class Looper {
+
+    private static final Looper MAIN = new Looper();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package dev.yong.wheel;
+
+import android.content.ComponentCallbacks2;
+
+/**
+ * 性能测试使用的替身，JVM 中没有系统内存回调
+ *
+ * @author coderyong
+ */
+public final class AppManager {
+
+    private static final AppManager INSTANCE = new AppManager();
+
+    private AppManager() {
+    }
+
+    public static AppManager getInstance() {
+        return INSTANCE;
+    }
+
+    public void addMemoryListener(ComponentCallbacks2 listener) {
+    }
+
+    public AppManager removeMemoryListener(ComponentCallbacks2 listener) {
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+package dev.yong.wheel.utils;
+
+import com.google.gson.Gson;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+/**
+ * 性能测试使用的替身，与 wheel 模块一样使用 Gson 实现
+ *
+ * @author coderyong
+ */
+public final class JSON {
+
+    private static final Gson GSON = new Gson();
+
+    private JSON() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    public static String toJson(Object object) {
+        return GSON.toJson(object);
+    }
+
+    public static String toJson(Object object, Type type) {
+        return GSON.toJson(object, type);
+    }
+
+    public static <T> T fromJson(String json, Type type) {
+        return GSON.fromJson(json, type);
+    }
+
+    public static <T> T fromJson(Reader reader, Type type) {
+        return GSON.fromJson(reader, type);
+    }
+}
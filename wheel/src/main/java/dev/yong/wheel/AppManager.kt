@@ -5,7 +5,9 @@ import android.annotation.SuppressLint
 import android.app.Activity
 import android.app.Application
 import android.app.Application.ActivityLifecycleCallbacks
+import android.content.ComponentCallbacks2
 import android.content.Intent
+import android.content.res.Configuration
 import android.content.pm.PackageInfo
 import android.content.pm.PackageManager
 import android.os.Build
@@ -24,13 +26,15 @@ import kotlin.system.exitProcess
  * @author coderyong
  */
 class AppManager private constructor() : Thread.UncaughtExceptionHandler,
-    ActivityLifecycleCallbacks {
+    ActivityLifecycleCallbacks, ComponentCallbacks2 {
 
     private var mApplication: Application? = null
 
     private val mActivities: Vector<Activity> = Vector()
     private val mLifecycleCallbacks: CopyOnWriteArrayList<ActivityLifecycleCallbacks> =
         CopyOnWriteArrayList()
+    private val mMemoryListeners: CopyOnWriteArrayList<ComponentCallbacks2> =
+        CopyOnWriteArrayList()
 
     val application: Application
         get() {
@@ -113,6 +117,22 @@ class AppManager private constructor() : Thread.UncaughtExceptionHandler,
         return this
     }
 
+    /**
+     * 添加内存状态监听，系统回调onTrimMemory/onLowMemory时通知，用于释放缓存
+     */
+    fun addMemoryListener(listener: ComponentCallbacks2): AppManager {
+        mMemoryListeners.addIfAbsent(listener)
+        return this
+    }
+
+    /**
+     * 移除内存状态监听
+     */
+    fun removeMemoryListener(listener: ComponentCallbacks2): AppManager {
+        mMemoryListeners.remove(listener)
+        return this
+    }
+
     /**
      * 添加Activity
      */
@@ -157,6 +177,7 @@ class AppManager private constructor() : Thread.UncaughtExceptionHandler,
         clearAllActivity()
         mActivities.clear()
         mLifecycleCallbacks.clear()
+        mMemoryListeners.clear()
         mApplication = null
         //退出程序
         Process.killProcess(Process.myPid())
@@ -257,6 +278,24 @@ class AppManager private constructor() : Thread.UncaughtExceptionHandler,
         }
     }
 
+    override fun onTrimMemory(level: Int) {
+        for (listener in mMemoryListeners) {
+            listener.onTrimMemory(level)
+        }
+    }
+
+    override fun onLowMemory() {
+        for (listener in mMemoryListeners) {
+            listener.onLowMemory()
+        }
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {
+        for (listener in mMemoryListeners) {
+            listener.onConfigurationChanged(newConfig)
+        }
+    }
+
     private object AppManagerHolder {
         val mInstance: AppManager = AppManager()
     }
@@ -306,6 +345,7 @@ class AppManager private constructor() : Thread.UncaughtExceptionHandler,
             //设置该CrashHandler为程序的默认处理器
             Thread.setDefaultUncaughtExceptionHandler(instance)
             application.registerActivityLifecycleCallbacks(instance)
+            application.registerComponentCallbacks(instance)
         }
     }
 }
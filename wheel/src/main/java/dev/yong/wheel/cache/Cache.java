@@ -9,10 +9,25 @@ import android.text.TextUtils;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import dev.yong.wheel.AppManager;
+
+import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @Author: wuyongzhi
@@ -23,29 +38,118 @@ import java.util.concurrent.TimeUnit;
 public class Cache {
 
     public static String CACHE_NAME = "wheel_cache";
+    /**
+     * 旧版本有效期记录，格式为"缓存时间;有效期"，初始化时迁移为 {@link #KEY_DEADLINE}
+     */
     private static final String KEY_VALIDITY = "_C_V";
+    /**
+     * 过期时间记录（毫秒时间戳）
+     */
+    private static final String KEY_DEADLINE = "_C_D";
+    private static final String MAPPED_DIR = "wheel_kv";
 
+    /**
+     * 通过 {@link #open(String, CacheConfig)} 打开的实例
+     */
+    private static final Map<String, Cache> sInstances = new HashMap<>();
+
+    /**
+     * 实例名称，默认实例为空
+     */
+    private final String mName;
     private Context mContext;
     private SharedPreferences mPreferences;
     private SharedPreferences.Editor mEditor;
 
     /**
-     * 内存缓存数据集合
+     * 内存缓存默认容量（估算字节数）
+     */
+    private static final long DEFAULT_MEMORY_CACHE_SIZE = Runtime.getRuntime().maxMemory() / 32;
+    private static volatile ScheduledExecutorService sScheduler;
+    /**
+     * 加载失败后的最短及最长退避时间（毫秒）
+     */
+    private static final long MIN_LOAD_BACKOFF = 1000;
+    private static final long MAX_LOAD_BACKOFF = 5 * 60 * 1000;
+    private static final int IO_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static volatile Executor sIOExecutor;
+    private static volatile Executor sLoaderExecutor;
+
+    /**
+     * 内存缓存，超出容量后淘汰，淘汰的数据仍可从SharedPreferences或文件缓存读取（putObject的数据除外）
+     */
+    private volatile MemoryCache mRAMCacheData = new MemoryCache(DEFAULT_MEMORY_CACHE_SIZE, null);
+    /**
+     * SharedPreferences数据的过期时间，与 {@link #KEY_DEADLINE} 记录同步
+     */
+    private final ExpiryIndex mPreferenceExpiry = new ExpiryIndex();
+    /**
+     * putObject/putSerializable数据的过期时间
+     */
+    private final ExpiryIndex mObjectExpiry = new ExpiryIndex();
+    /**
+     * 统计记录，默认关闭
+     */
+    private final StatsCounter mStats = new StatsCounter();
+    private ScheduledFuture<?> mStatsTask;
+    /**
+     * 正在读取文件缓存的 key，用于合并相同 key 的异步读取
+     */
+    private final ConcurrentHashMap<String, CacheFuture<Object>> mLoading = new ConcurrentHashMap<>();
+    /**
+     * 正在通过 {@link Loader} 加载的 key，用于合并相同 key 的加载
      */
-    private final Map<String, Object> mRAMCacheData = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CacheFuture<Object>> mLoaders = new ConcurrentHashMap<>();
     /**
-     * 有效期管理集合
+     * {@link #getOrLoad} 加载数据的刷新时间，超过后数据视为陈旧；未记录时（如重启后）根据文件缓存的到期时间推算
      */
-    private final Map<String, String> mValidityMap = new ConcurrentHashMap<>();
+    private final ExpiryIndex mRefreshAt = new ExpiryIndex();
+    /**
+     * 加载失败记录，退避期内直接返回失败
+     */
+    private final ConcurrentHashMap<String, LoadFailure> mLoadFailures = new ConcurrentHashMap<>();
+    /**
+     * 过期数据清理任务
+     */
+    private ScheduledFuture<?> mSweepTask;
     /**
      * 文件缓存
      */
     private FileCache mFileCache;
+    /**
+     * 按类型指定的文件缓存序列化器
+     */
+    private final Map<Class<?>, CacheSerializer<?>> mTypeSerializers = new ConcurrentHashMap<>();
+    /**
+     * 未按类型指定时使用的序列化器，为空时使用 Java 序列化
+     */
+    private volatile CacheSerializer<?> mDefaultSerializer;
+
+    /**
+     * 替换内存缓存，用于调整容量或数据大小计算方式
+     *
+     * @param memoryCache 内存缓存
+     */
+    public Cache setMemoryCache(@NonNull MemoryCache memoryCache) {
+        MemoryCache previous = mRAMCacheData;
+        mRAMCacheData = memoryCache;
+        AppManager.getInstance().removeMemoryListener(previous);
+        AppManager.getInstance().addMemoryListener(memoryCache);
+        return this;
+    }
+
+    /**
+     * 获取内存缓存，可通过其命中/未命中/淘汰计数调整容量
+     */
+    public MemoryCache getMemoryCache() {
+        return mRAMCacheData;
+    }
 
     public SharedPreferences getPreferences() {
         if (mPreferences == null) {
             try {
                 mPreferences = getContext().getSharedPreferences(CACHE_NAME, Context.MODE_PRIVATE);
+                loadExpiry(mPreferences);
             } catch (Throwable e) {
                 throw new IllegalArgumentException("Cache not initialized, use Cache.init(Context) to initialize.");
             }
@@ -78,10 +182,7 @@ public class Cache {
         }
         if (!compare || needReCache(key, value)) {
             SharedPreferences.Editor editor = getEditor().putString(key, value);
-            if (validity > 0) {
-                String vValue = System.currentTimeMillis() + ";" + validity;
-                editor.putString(key + KEY_VALIDITY, vValue);
-            }
+            putDeadline(editor, key, validity);
             editor.apply();
             mRAMCacheData.put(key, value);
         }
@@ -103,10 +204,7 @@ public class Cache {
     public Cache putInt(String key, int value, long validity, boolean compare) {
         if (!compare || needReCache(key, value)) {
             SharedPreferences.Editor editor = getEditor().putInt(key, value);
-            if (validity > 0) {
-                String vValue = System.currentTimeMillis() + ";" + validity;
-                editor.putString(key + KEY_VALIDITY, vValue);
-            }
+            putDeadline(editor, key, validity);
             editor.apply();
             mRAMCacheData.put(key, value);
         }
@@ -128,10 +226,7 @@ public class Cache {
     public Cache putLong(String key, long value, long validity, boolean compare) {
         if (!compare || needReCache(key, value)) {
             SharedPreferences.Editor editor = getEditor().putLong(key, value);
-            if (validity > 0) {
-                String vValue = System.currentTimeMillis() + ";" + validity;
-                editor.putString(key + KEY_VALIDITY, vValue);
-            }
+            putDeadline(editor, key, validity);
             editor.apply();
             mRAMCacheData.put(key, value);
         }
@@ -153,10 +248,7 @@ public class Cache {
     public Cache putFloat(String key, float value, long validity, boolean compare) {
         if (!compare || needReCache(key, value)) {
             SharedPreferences.Editor editor = getEditor().putFloat(key, value);
-            if (validity > 0) {
-                String vValue = System.currentTimeMillis() + ";" + validity;
-                editor.putString(key + KEY_VALIDITY, vValue);
-            }
+            putDeadline(editor, key, validity);
             editor.apply();
             mRAMCacheData.put(key, value);
         }
@@ -178,10 +270,7 @@ public class Cache {
     public Cache putBoolean(String key, boolean value, long validity, boolean compare) {
         if (!compare || needReCache(key, value)) {
             SharedPreferences.Editor editor = getEditor().putBoolean(key, value);
-            if (validity > 0) {
-                String vValue = System.currentTimeMillis() + ";" + validity;
-                editor.putString(key + KEY_VALIDITY, vValue);
-            }
+            putDeadline(editor, key, validity);
             editor.apply();
             mRAMCacheData.put(key, value);
         }
@@ -190,128 +279,237 @@ public class Cache {
 
     public SharedPreferences.Editor remove(String key) {
         mRAMCacheData.remove(key);
-        return getEditor().remove(key).remove(key + KEY_VALIDITY);
+        mPreferenceExpiry.remove(key);
+        return getEditor().remove(key).remove(key + KEY_DEADLINE);
     }
 
     public SharedPreferences.Editor clear() {
         mRAMCacheData.clear();
+        mPreferenceExpiry.clear();
         return getEditor().clear();
     }
 
+    /**
+     * 记录过期时间
+     *
+     * @param validity 有效期，小于等于0时不修改
+     */
+    private void putDeadline(SharedPreferences.Editor editor, String key, long validity) {
+        if (validity > 0) {
+            long deadline = System.currentTimeMillis() + validity;
+            editor.putLong(key + KEY_DEADLINE, deadline);
+            mPreferenceExpiry.put(key, deadline);
+        }
+    }
+
+    /**
+     * 读取过期时间记录，并将旧版本"缓存时间;有效期"格式的记录迁移为过期时间
+     */
+    private void loadExpiry(SharedPreferences preferences) {
+        mPreferenceExpiry.clear();
+        SharedPreferences.Editor editor = null;
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            String name = entry.getKey();
+            Object value = entry.getValue();
+            if (name.endsWith(KEY_DEADLINE) && value instanceof Long) {
+                mPreferenceExpiry.put(name.substring(0, name.length() - KEY_DEADLINE.length()), (Long) value);
+            } else if (name.endsWith(KEY_VALIDITY) && value instanceof String) {
+                String key = name.substring(0, name.length() - KEY_VALIDITY.length());
+                if (editor == null) {
+                    editor = preferences.edit();
+                }
+                editor.remove(name);
+                try {
+                    String[] info = ((String) value).split(";");
+                    long deadline = Long.parseLong(info[0]) + Long.parseLong(info[1]);
+                    editor.putLong(key + KEY_DEADLINE, deadline);
+                    mPreferenceExpiry.put(key, deadline);
+                } catch (Throwable ignored) {
+                }
+            }
+        }
+        if (editor != null) {
+            editor.apply();
+        }
+    }
+
     public static Map<String, ?> getAll() {
-        return getInstance().getPreferences().getAll();
+        return getInstance().all();
     }
 
     @Nullable
     public static String getString(String key) {
-        return getString(key, "");
+        return getInstance().optString(key);
     }
 
     @Nullable
     public static String getString(String key, @Nullable String defValue) {
-        if (checkValidityAndRemove(key)) {
+        return getInstance().optString(key, defValue);
+    }
+
+    public static int getInt(String key) {
+        return getInstance().optInt(key);
+    }
+
+    public static int getInt(String key, int defValue) {
+        return getInstance().optInt(key, defValue);
+    }
+
+    public static long getLong(String key) {
+        return getInstance().optLong(key);
+    }
+
+    public static long getLong(String key, long defValue) {
+        return getInstance().optLong(key, defValue);
+    }
+
+    public static float getFloat(String key) {
+        return getInstance().optFloat(key);
+    }
+
+    public static float getFloat(String key, float defValue) {
+        return getInstance().optFloat(key, defValue);
+    }
+
+    public static boolean getBoolean(String key) {
+        return getInstance().optBoolean(key);
+    }
+
+    public static boolean getBoolean(String key, boolean defValue) {
+        return getInstance().optBoolean(key, defValue);
+    }
+
+    public static boolean contains(String key) {
+        return getInstance().has(key);
+    }
+
+    public static boolean checkValidityAndRemove(String key) {
+        return getInstance().isValid(key);
+    }
+
+    public Map<String, ?> all() {
+        return getPreferences().getAll();
+    }
+
+    @Nullable
+    public String optString(String key) {
+        return optString(key, "");
+    }
+
+    @Nullable
+    public String optString(String key, @Nullable String defValue) {
+        if (isValid(key)) {
             try {
-                String value = (String) getInstance().mRAMCacheData.get(key);
+                String value = (String) memoryGet(key);
                 if (!TextUtils.isEmpty(value)) {
                     return value;
                 }
             } catch (Throwable ignored) {
             }
-            return getInstance().getPreferences().getString(key, defValue);
+            return getPreferences().getString(key, defValue);
         }
         return defValue;
     }
 
-    public static int getInt(String key) {
-        return getInt(key, 0);
+    public int optInt(String key) {
+        return optInt(key, 0);
     }
 
-    public static int getInt(String key, int defValue) {
-        if (checkValidityAndRemove(key)) {
+    public int optInt(String key, int defValue) {
+        if (isValid(key)) {
             try {
-                return (int) getInstance().mRAMCacheData.get(key);
+                return (int) memoryGet(key);
             } catch (Throwable ignored) {
             }
-            return getInstance().getPreferences().getInt(key, defValue);
+            return getPreferences().getInt(key, defValue);
         }
         return defValue;
     }
 
-    public static long getLong(String key) {
-        return getLong(key, 0L);
+    public long optLong(String key) {
+        return optLong(key, 0L);
     }
 
-    public static long getLong(String key, long defValue) {
-        if (checkValidityAndRemove(key)) {
+    public long optLong(String key, long defValue) {
+        if (isValid(key)) {
             try {
-                return (long) getInstance().mRAMCacheData.get(key);
+                return (long) memoryGet(key);
             } catch (Throwable ignored) {
             }
-            return getInstance().getPreferences().getLong(key, defValue);
+            return getPreferences().getLong(key, defValue);
         }
         return defValue;
     }
 
-    public static float getFloat(String key) {
-        return getFloat(key, 0F);
+    public float optFloat(String key) {
+        return optFloat(key, 0F);
     }
 
-    public static float getFloat(String key, float defValue) {
-        if (checkValidityAndRemove(key)) {
+    public float optFloat(String key, float defValue) {
+        if (isValid(key)) {
             try {
-                return (float) getInstance().mRAMCacheData.get(key);
+                return (float) memoryGet(key);
             } catch (Throwable ignored) {
             }
-            return getInstance().getPreferences().getFloat(key, defValue);
+            return getPreferences().getFloat(key, defValue);
         }
         return defValue;
     }
 
-    public static boolean getBoolean(String key) {
-        return getBoolean(key, false);
+    public boolean optBoolean(String key) {
+        return optBoolean(key, false);
     }
 
-    public static boolean getBoolean(String key, boolean defValue) {
-        if (checkValidityAndRemove(key)) {
+    public boolean optBoolean(String key, boolean defValue) {
+        if (isValid(key)) {
             try {
-                return (boolean) getInstance().mRAMCacheData.get(key);
+                return (boolean) memoryGet(key);
             } catch (Throwable ignored) {
             }
-            return getInstance().getPreferences().getBoolean(key, defValue);
+            return getPreferences().getBoolean(key, defValue);
         }
         return defValue;
     }
 
-    public static boolean contains(String key) {
-        if (checkValidityAndRemove(key)) {
-            return getInstance().getPreferences().contains(key);
+    public boolean has(String key) {
+        if (isValid(key)) {
+            return getPreferences().contains(key);
         }
         return false;
     }
 
-    public static boolean checkValidityAndRemove(String key) {
+    /**
+     * 检查SharedPreferences数据是否在有效期内，已过期时移除
+     *
+     * @return 是否有效
+     */
+    public boolean isValid(String key) {
         if (TextUtils.isEmpty(key)) {
             return false;
         }
         try {
-            SharedPreferences preferences = getInstance().getPreferences();
-            String validityInfo = preferences.getString(key + KEY_VALIDITY, "");
-            if (!TextUtils.isEmpty(validityInfo)) {
-                String[] info = validityInfo.split(";");
-                long cacheTime = Long.parseLong(info[0]);
-                long validity = Long.parseLong(info[1]);
-                long currentTime = System.currentTimeMillis();
-                //如果当前时间小于缓存时间或者当前时间大于缓存有效期视为缓存过期
-                if (currentTime < cacheTime || currentTime - cacheTime > validity) {
-                    getInstance().remove(key).apply();
-                    return false;
-                }
-            }
+            //确保过期时间记录已加载
+            getPreferences();
         } catch (Throwable ignored) {
+            return true;
+        }
+        if (mPreferenceExpiry.isExpired(key, System.currentTimeMillis())) {
+            mStats.recordExpiry(1);
+            remove(key).apply();
+            return false;
         }
         return true;
     }
 
+    /**
+     * 从内存缓存读取并记录命中情况
+     */
+    private Object memoryGet(String key) {
+        Object value = mRAMCacheData.get(key);
+        mStats.recordMemory(value != null);
+        return value;
+    }
+
     private boolean needReCache(String key, Object value) {
         try {
             Object v = mRAMCacheData.get(key);
@@ -329,6 +527,22 @@ public class Cache {
         return true;
     }
 
+    /**
+     * 为指定类型设置文件缓存序列化器，未设置的类型使用 Java 序列化
+     * <p>
+     * 文件头会记录写入时使用的序列化器，修改设置不影响已有缓存的读取；
+     * 不依赖类型信息的序列化器（如 {@link CacheSerializers#BINARY}）可直接通过 {@link #getSerializable(String)} 读取，
+     * Gson 序列化器需要通过 {@link #getSerializable(String, CacheSerializer)} 读取，
+     * 或使用独立 id 创建并通过 {@link CacheSerializers#register(CacheSerializer)} 注册。
+     *
+     * @param type       数据类型
+     * @param serializer 序列化器
+     */
+    public <T> Cache registerSerializer(Class<T> type, CacheSerializer<? super T> serializer) {
+        mTypeSerializers.put(type, serializer);
+        return this;
+    }
+
     /**
      * 缓存Object到Cache内存
      *
@@ -341,18 +555,47 @@ public class Cache {
 
     /**
      * 缓存Object到Cache内存
+     * <p>
+     * 数据不经过序列化，使用默认的 {@link MemoryCache#DEFAULT_WEIGHER} 时按 64 字节估算，
+     * 保存较大的对象时应通过 {@link CacheConfig#setMemorySize(long, MemoryCache.Weigher)} 指定大小计算方式
      *
      * @param key      缓存Key
      * @param value    缓存内容
      * @param validity 有效期
      */
     public void putSerializable(String key, Serializable value, long validity) {
+        putSerializable(key, value, serializerFor(value), validity);
+    }
+
+    /**
+     * 获取数据类型对应的序列化器，未设置时使用实例默认的序列化器
+     */
+    @SuppressWarnings("unchecked")
+    private CacheSerializer<Object> serializerFor(Object value) {
+        CacheSerializer<Object> serializer = (CacheSerializer<Object>) mTypeSerializers.get(value.getClass());
+        if (serializer == null) {
+            serializer = (CacheSerializer<Object>) (mDefaultSerializer != null
+                    ? mDefaultSerializer : CacheSerializers.JAVA);
+        }
+        return serializer;
+    }
+
+    /**
+     * 使用指定序列化器缓存Object到Cache内存及文件
+     *
+     * @param key        缓存Key
+     * @param value      缓存内容
+     * @param serializer 文件缓存序列化器
+     * @param validity   有效期
+     */
+    public <T> void putSerializable(String key, T value, CacheSerializer<T> serializer, long validity) {
         if (validity > 0) {
-            mValidityMap.put(key + KEY_VALIDITY, System.currentTimeMillis() + ";" + validity);
+            mObjectExpiry.put(key, System.currentTimeMillis() + validity);
         }
-        mRAMCacheData.put(key, value);
         if (needReCache(key, value)) {
-            mFileCache.put(key, value, validity, TimeUnit.MILLISECONDS);
+            mFileCache.put(key, value, serializer, validity > 0 ? validity : -1, TimeUnit.MILLISECONDS);
+            //按序列化后的大小估算内存占用；未重新写入时内存中已有相同的数据
+            mRAMCacheData.put(key, value, mFileCache.sizeOf(key));
         }
     }
 
@@ -362,40 +605,37 @@ public class Cache {
      * @param key 缓存Key
      * @return 缓存对象
      */
-    @SuppressWarnings("unchecked")
     public <T> T getSerializable(String key) {
+        return getSerializable(key, null);
+    }
+
+    /**
+     * 从缓存中获取，内存中不存在时使用指定序列化器读取文件缓存
+     *
+     * @param key        缓存Key
+     * @param serializer 文件缓存序列化器，为空时根据文件头选择已注册的序列化器
+     * @return 缓存对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSerializable(String key, @Nullable CacheSerializer<T> serializer) {
         try {
-            String validityInfo = mValidityMap.get(key + KEY_VALIDITY);
-            if (TextUtils.isEmpty(validityInfo)) {
-                Object value = mRAMCacheData.get(key);
-                if (value == null) {
-                    value = mFileCache.getSerializable(key);
-                    if (value != null) {
-                        mRAMCacheData.put(key, value);
-                    }
-                }
-                return (T) value;
-            } else {
-                String[] info = validityInfo.split(";");
-                long cacheTime = Long.parseLong(info[0]);
-                long validity = Long.parseLong(info[1]);
-                long currentTime = System.currentTimeMillis();
-                if (currentTime < cacheTime || currentTime - cacheTime < validity) {
-                    Object value = mRAMCacheData.get(key);
-                    if (value == null) {
-                        value = mFileCache.getSerializable(key);
-                        if (value != null) {
-                            mRAMCacheData.put(key, value);
-                        }
-                    }
-                    return (T) value;
-                } else {
-                    mValidityMap.remove(key + KEY_VALIDITY);
-                    mRAMCacheData.remove(key);
-                    mFileCache.remove(key);
-                    return null;
+            if (mObjectExpiry.isExpired(key, System.currentTimeMillis())) {
+                mObjectExpiry.remove(key);
+                mRAMCacheData.remove(key);
+                mFileCache.remove(key);
+                mStats.recordExpiry(1);
+                return null;
+            }
+            Object value = memoryGet(key);
+            if (value == null) {
+                long startTime = mStats.startTime();
+                value = mFileCache.get(key, serializer);
+                mStats.recordLoad(value != null, startTime);
+                if (value != null) {
+                    mRAMCacheData.put(key, value, mFileCache.sizeOf(key));
                 }
             }
+            return (T) value;
         } catch (Throwable ignored) {
         }
         return null;
@@ -420,7 +660,7 @@ public class Cache {
      */
     public void putObject(String key, Object value, long validity) {
         if (validity > 0) {
-            mValidityMap.put(key + KEY_VALIDITY, System.currentTimeMillis() + ";" + validity);
+            mObjectExpiry.put(key, System.currentTimeMillis() + validity);
         }
         mRAMCacheData.put(key, value);
     }
@@ -434,51 +674,700 @@ public class Cache {
     @SuppressWarnings("unchecked")
     public <T> T getObject(String key) {
         try {
-            String validityInfo = mValidityMap.get(key + KEY_VALIDITY);
-            if (TextUtils.isEmpty(validityInfo)) {
-                return (T) mRAMCacheData.get(key);
-            } else {
-                String[] info = validityInfo.split(";");
-                long cacheTime = Long.parseLong(info[0]);
-                long validity = Long.parseLong(info[1]);
-                long currentTime = System.currentTimeMillis();
-                if (currentTime < cacheTime || currentTime - cacheTime < validity) {
-                    return (T) mRAMCacheData.get(key);
-                } else {
-                    mValidityMap.remove(key + KEY_VALIDITY);
-                    mRAMCacheData.remove(key);
-                    return null;
-                }
+            if (mObjectExpiry.isExpired(key, System.currentTimeMillis())) {
+                mObjectExpiry.remove(key);
+                mRAMCacheData.remove(key);
+                mStats.recordExpiry(1);
+                return null;
             }
+            return (T) memoryGet(key);
         } catch (Throwable ignored) {
         }
         return null;
     }
 
+    /**
+     * 批量写入，所有修改在事务结束后一次提交
+     * <p>
+     * 内存数据立即更新，SharedPreferences 只提交一次（异步写入磁盘），文件缓存日志只落盘一次
+     *
+     * @param transaction 批量写入事务
+     */
+    public Cache batch(@NonNull CacheBatch.Transaction transaction) {
+        CacheBatch batch = new CacheBatch();
+        transaction.run(batch);
+        long now = System.currentTimeMillis();
+        applyBatchToMemory(batch, now);
+        writeBatch(batch, now, false);
+        return this;
+    }
+
+    /**
+     * 异步批量写入，内存数据立即更新，磁盘写入在后台线程按提交顺序执行
+     *
+     * @param transaction 批量写入事务
+     * @return 磁盘写入结果，SharedPreferences 提交失败时为 false
+     */
+    public CacheFuture<Boolean> batchAsync(@NonNull CacheBatch.Transaction transaction) {
+        final CacheBatch batch = new CacheBatch();
+        transaction.run(batch);
+        final long now = System.currentTimeMillis();
+        applyBatchToMemory(batch, now);
+        final CacheFuture<Boolean> future = new CacheFuture<>();
+        scheduler().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    future.complete(writeBatch(batch, now, true));
+                } catch (Throwable e) {
+                    future.fail(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 异步缓存Object到Cache内存及文件，内存数据立即更新，文件写入与 {@link #batchAsync(CacheBatch.Transaction)} 按提交顺序执行
+     *
+     * @param key      缓存Key
+     * @param value    缓存内容
+     * @param validity 有效期
+     * @return 写入结果
+     */
+    public CacheFuture<Boolean> putAsync(final String key, final Serializable value, final long validity) {
+        return batchAsync(new CacheBatch.Transaction() {
+            @Override
+            public void run(CacheBatch batch) {
+                batch.putSerializable(key, value, validity);
+            }
+        });
+    }
+
+    /**
+     * 异步获取缓存，结果在主线程回调
+     *
+     * @param key      缓存Key
+     * @param callback 回调，内存命中时直接在当前线程回调
+     */
+    public <T> void getAsync(String key, @NonNull CacheFuture.Callback<T> callback) {
+        this.<T>getAsync(key, (CacheSerializer<T>) null).addCallback(CacheFuture.MAIN, callback);
+    }
+
+    /**
+     * 异步获取缓存，内存未命中时在I/O线程读取文件缓存
+     * <p>
+     * 内存命中时返回已完成的结果，不切换线程；同一个 key 正在读取时共享同一次读取（以先发起读取的序列化器为准），
+     * 每次调用返回独立的结果，取消只影响该调用。
+     *
+     * @param key        缓存Key
+     * @param serializer 文件缓存序列化器，为空时根据文件头选择已注册的序列化器
+     * @return 读取结果，通过 {@link CacheFuture#addCallback} 指定回调线程
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CacheFuture<T> getAsync(final String key, @Nullable final CacheSerializer<T> serializer) {
+        if (!mObjectExpiry.isExpired(key, System.currentTimeMillis())) {
+            Object value = memoryGet(key);
+            if (value != null) {
+                return CacheFuture.completed((T) value);
+            }
+        }
+        final CacheFuture<Object> future = new CacheFuture<>();
+        CacheFuture<Object> loading = mLoading.putIfAbsent(key, future);
+        if (loading != null) {
+            return loading.fork();
+        }
+        ioExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Object value;
+                try {
+                    value = getSerializable(key, serializer);
+                } catch (Throwable e) {
+                    mLoading.remove(key, future);
+                    future.fail(e);
+                    return;
+                }
+                mLoading.remove(key, future);
+                future.complete(value);
+            }
+        });
+        return future.fork();
+    }
+
+    /**
+     * 获取缓存，缺失时通过 loader 加载并缓存，陈旧数据保留与 ttl 相同的时长
+     *
+     * @see #getOrLoad(String, long, long, Loader)
+     */
+    public <T> CacheFuture<T> getOrLoad(String key, long ttl, @NonNull Loader<T> loader) {
+        return getOrLoad(key, ttl, ttl, loader);
+    }
+
+    /**
+     * 获取缓存，缺失时通过 loader 在加载线程池中加载并缓存
+     *
+     * @see #getOrLoad(String, long, long, Executor, Loader)
+     */
+    public <T> CacheFuture<T> getOrLoad(String key, long ttl, long staleTtl, @NonNull Loader<T> loader) {
+        return getOrLoad(key, ttl, staleTtl, loaderExecutor(), loader);
+    }
+
+    /**
+     * 获取缓存，缺失时通过 loader 在 executor 中加载并缓存
+     * <ul>
+     * <li>同一 key 同时只有一个加载任务，并发调用共享同一次加载，每次调用返回独立的结果，取消只影响该调用</li>
+     * <li>超过 ttl 但未超过 ttl + staleTtl 的数据直接返回，同时在后台刷新一次</li>
+     * <li>加载失败（或返回 null）后按指数退避（1 秒起，最长 5 分钟）记录失败，退避期内直接返回该失败，不再调用 loader</li>
+     * </ul>
+     *
+     * @param key      缓存Key
+     * @param ttl      数据新鲜时长（毫秒）
+     * @param staleTtl 数据陈旧后仍可返回的时长（毫秒）
+     * @param executor 执行 loader 的线程池，不应使用缓存的I/O线程，避免耗时加载阻塞文件缓存读取
+     * @param loader   数据加载
+     * @return 读取结果，内存命中时返回已完成的结果
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CacheFuture<T> getOrLoad(String key, long ttl, long staleTtl,
+                                        @NonNull Executor executor, @NonNull Loader<T> loader) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl <= 0");
+        }
+        if (staleTtl < 0) {
+            throw new IllegalArgumentException("staleTtl < 0");
+        }
+        long now = System.currentTimeMillis();
+        if (!mObjectExpiry.isExpired(key, now)) {
+            Object value = memoryGet(key);
+            if (value != null) {
+                if (isStale(key, staleTtl, now)) {
+                    load(key, ttl, staleTtl, executor, loader, false);
+                }
+                return CacheFuture.completed((T) value);
+            }
+        }
+        return load(key, ttl, staleTtl, executor, loader, true).fork();
+    }
+
+    private boolean isStale(String key, long staleTtl, long now) {
+        long refreshAt = mRefreshAt.get(key);
+        if (refreshAt == ExpiryIndex.NONE) {
+            //写入文件缓存的有效期为 ttl + staleTtl，据此推算刷新时间，重启后不会把所有数据视为陈旧
+            FileCache fileCache = mFileCache;
+            long expireAt = fileCache == null ? -1 : fileCache.getExpireTime(key);
+            if (expireAt <= 0) {
+                return true;
+            }
+            refreshAt = expireAt - staleTtl;
+            mRefreshAt.put(key, refreshAt);
+        }
+        return now >= refreshAt;
+    }
+
+    /**
+     * @param readCache 是否先读取文件缓存，读到陈旧数据时先返回该数据再继续加载
+     */
+    private CacheFuture<Object> load(final String key, final long ttl, final long staleTtl, Executor executor,
+                                     final Loader<?> loader, final boolean readCache) {
+        final CacheFuture<Object> future = new CacheFuture<>();
+        CacheFuture<Object> loading = mLoaders.putIfAbsent(key, future);
+        if (loading != null) {
+            return loading;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (readCache) {
+                        Object value = getSerializable(key);
+                        if (value != null) {
+                            future.complete(value);
+                            if (!isStale(key, staleTtl, System.currentTimeMillis())) {
+                                return;
+                            }
+                        }
+                    }
+                    LoadFailure failure = mLoadFailures.get(key);
+                    if (failure != null && System.currentTimeMillis() < failure.retryAt) {
+                        future.fail(failure.error);
+                        return;
+                    }
+                    Object value = loader.load();
+                    if (value == null) {
+                        throw new NullPointerException("Loader returned null for " + key);
+                    }
+                    mLoadFailures.remove(key);
+                    putSerializable(key, value, serializerFor(value), ttl + staleTtl);
+                    mRefreshAt.put(key, System.currentTimeMillis() + ttl);
+                    future.complete(value);
+                } catch (Throwable e) {
+                    recordLoadFailure(key, e);
+                    future.fail(e);
+                } finally {
+                    mLoaders.remove(key, future);
+                }
+            }
+        });
+        return future;
+    }
+
+    private void recordLoadFailure(String key, Throwable error) {
+        LoadFailure previous = mLoadFailures.get(key);
+        int count = previous == null ? 1 : Math.min(previous.count + 1, 32);
+        long backoff = Math.min(MAX_LOAD_BACKOFF, MIN_LOAD_BACKOFF << Math.min(count - 1, 20));
+        mLoadFailures.put(key, new LoadFailure(error, count, System.currentTimeMillis() + backoff));
+    }
+
+    private void applyBatchToMemory(CacheBatch batch, long now) {
+        for (CacheBatch.Op op : batch.mOps) {
+            switch (op.type) {
+                case CacheBatch.TYPE_PREFERENCE:
+                    mRAMCacheData.put(op.key, op.value);
+                    if (op.validity > 0) {
+                        mPreferenceExpiry.put(op.key, now + op.validity);
+                    }
+                    break;
+                case CacheBatch.TYPE_SERIALIZABLE:
+                case CacheBatch.TYPE_OBJECT:
+                    mRAMCacheData.put(op.key, op.value);
+                    if (op.validity > 0) {
+                        mObjectExpiry.put(op.key, now + op.validity);
+                    }
+                    break;
+                case CacheBatch.TYPE_REMOVE:
+                    mRAMCacheData.remove(op.key);
+                    mPreferenceExpiry.remove(op.key);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 将批量写入的数据写入磁盘
+     *
+     * @param sync 是否同步提交SharedPreferences
+     * @return SharedPreferences 是否提交成功
+     */
+    @SuppressWarnings("unchecked")
+    private boolean writeBatch(CacheBatch batch, long now, boolean sync) {
+        SharedPreferences.Editor editor = getPreferences().edit();
+        boolean modified = false;
+        final List<CacheBatch.Op> files = new ArrayList<>();
+        for (CacheBatch.Op op : batch.mOps) {
+            if (op.type == CacheBatch.TYPE_PREFERENCE) {
+                Object value = op.value;
+                if (value instanceof String) {
+                    editor.putString(op.key, (String) value);
+                } else if (value instanceof Integer) {
+                    editor.putInt(op.key, (Integer) value);
+                } else if (value instanceof Long) {
+                    editor.putLong(op.key, (Long) value);
+                } else if (value instanceof Float) {
+                    editor.putFloat(op.key, (Float) value);
+                } else if (value instanceof Boolean) {
+                    editor.putBoolean(op.key, (Boolean) value);
+                }
+                if (op.validity > 0) {
+                    editor.putLong(op.key + KEY_DEADLINE, now + op.validity);
+                }
+                modified = true;
+            } else if (op.type == CacheBatch.TYPE_REMOVE) {
+                editor.remove(op.key).remove(op.key + KEY_DEADLINE);
+                modified = true;
+            } else if (op.type == CacheBatch.TYPE_SERIALIZABLE) {
+                files.add(op);
+            }
+        }
+        if (!files.isEmpty()) {
+            mFileCache.batch(new Runnable() {
+                @Override
+                public void run() {
+                    for (CacheBatch.Op op : files) {
+                        CacheSerializer<Object> serializer = op.serializer != null
+                                ? (CacheSerializer<Object>) op.serializer : serializerFor(op.value);
+                        mFileCache.put(op.key, op.value, serializer,
+                                op.validity > 0 ? op.validity : -1, TimeUnit.MILLISECONDS);
+                        //内存中已先写入，按序列化后的大小更新
+                        mRAMCacheData.updateSize(op.key, op.value, mFileCache.sizeOf(op.key));
+                    }
+                }
+            });
+        }
+        if (!modified) {
+            return true;
+        }
+        if (sync) {
+            return editor.commit();
+        }
+        editor.apply();
+        return true;
+    }
+
+    /**
+     * 开启或关闭统计，关闭时不产生额外开销
+     */
+    public Cache recordStats(boolean enabled) {
+        mStats.setEnabled(enabled);
+        return this;
+    }
+
+    /**
+     * 获取统计快照，需先通过 {@link #recordStats(boolean)} 开启统计
+     */
+    public CacheStats stats() {
+        return mStats.snapshot(mRAMCacheData.evictionCount());
+    }
+
+    /**
+     * 定期回调统计快照，用于导出到监控系统，设置后自动开启统计
+     *
+     * @param listener 监听，为空时取消
+     * @param interval 回调间隔
+     * @param unit     时间单位
+     */
+    public synchronized Cache setStatsListener(@Nullable final CacheStats.Listener listener,
+                                               long interval, @NonNull TimeUnit unit) {
+        if (mStatsTask != null) {
+            mStatsTask.cancel(false);
+            mStatsTask = null;
+        }
+        if (listener != null && interval > 0) {
+            recordStats(true);
+            mStatsTask = scheduler().scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        listener.onStats(stats());
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                    }
+                }
+            }, interval, interval, unit);
+        }
+        return this;
+    }
+
+    /**
+     * 设置过期数据的清理间隔，过期数据除了在读取时删除，还会由后台线程定期清理
+     *
+     * @param interval 清理间隔，小于等于0时停止定期清理
+     * @param unit     时间单位
+     */
+    public synchronized Cache setSweepInterval(long interval, @NonNull TimeUnit unit) {
+        if (mSweepTask != null) {
+            mSweepTask.cancel(false);
+            mSweepTask = null;
+        }
+        if (interval > 0) {
+            mSweepTask = scheduler().scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    sweep();
+                }
+            }, interval, interval, unit);
+        }
+        return this;
+    }
+
+    /**
+     * 立即清理所有已过期的数据
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        List<String> expired = new ArrayList<>();
+        mObjectExpiry.expire(now, expired);
+        mStats.recordExpiry(expired.size());
+        for (String key : expired) {
+            mRAMCacheData.remove(key);
+            mRefreshAt.remove(key);
+            if (mFileCache != null) {
+                mFileCache.remove(key);
+            }
+        }
+        if (mPreferences == null) {
+            return;
+        }
+        expired.clear();
+        mPreferenceExpiry.expire(now, expired);
+        mStats.recordExpiry(expired.size());
+        if (!expired.isEmpty()) {
+            SharedPreferences.Editor editor = getEditor();
+            for (String key : expired) {
+                mRAMCacheData.remove(key);
+                editor.remove(key).remove(key + KEY_DEADLINE);
+            }
+            editor.apply();
+        }
+    }
+
+    /**
+     * 文件缓存读取及分段合并线程池，线程数有上限，空闲后回收
+     */
+    static Executor ioExecutor() {
+        if (sIOExecutor == null) {
+            synchronized (Cache.class) {
+                if (sIOExecutor == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS,
+                            30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(@NonNull Runnable r) {
+                            Thread thread = new Thread(r, "wheel-cache-io-" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    sIOExecutor = executor;
+                }
+            }
+        }
+        return sIOExecutor;
+    }
+
+    /**
+     * {@link #getOrLoad} 默认的加载线程池，与I/O线程池分开，按需创建线程，空闲后回收
+     */
+    private static Executor loaderExecutor() {
+        if (sLoaderExecutor == null) {
+            synchronized (Cache.class) {
+                if (sLoaderExecutor == null) {
+                    sLoaderExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                            30, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(@NonNull Runnable r) {
+                            Thread thread = new Thread(r, "wheel-cache-loader-" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return sLoaderExecutor;
+    }
+
+    /**
+     * 后台单线程，负责过期数据清理及异步批量写入，任务按提交顺序执行
+     */
+    private static ScheduledExecutorService scheduler() {
+        if (sScheduler == null) {
+            synchronized (Cache.class) {
+                if (sScheduler == null) {
+                    sScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(@NonNull Runnable r) {
+                            Thread thread = new Thread(r, "wheel-cache");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return sScheduler;
+    }
+
     public static void init(@NonNull Context context) {
         init(context, CACHE_NAME);
     }
 
     public static void init(@NonNull Context context, String cacheName) {
-        Context appContext = context.getApplicationContext();
-        CacheHolder.INSTANCE.mContext = appContext;
-        CacheHolder.INSTANCE.mPreferences = appContext.getSharedPreferences(cacheName, Context.MODE_PRIVATE);
+        init(context, cacheName, Engine.PREFERENCES);
+    }
+
+    /**
+     * 初始化缓存
+     *
+     * @param context   上下文
+     * @param cacheName 缓存名称
+     * @param engine    键值存储引擎，切换引擎不会迁移已有数据
+     */
+    public static void init(@NonNull Context context, String cacheName, @NonNull Engine engine) {
+        init(context, cacheName, new CacheConfig().setEngine(engine));
+    }
+
+    /**
+     * 初始化默认缓存实例
+     *
+     * @param context   上下文
+     * @param cacheName 缓存名称
+     * @param config    缓存配置，未设置目录时文件缓存保存在 cacheDir 下
+     */
+    public static void init(@NonNull Context context, String cacheName, @NonNull CacheConfig config) {
+        CacheHolder.INSTANCE.configure(context.getApplicationContext(), cacheName, config, context.getCacheDir());
+    }
+
+    /**
+     * 打开指定名称的缓存实例
+     *
+     * @see #open(String, CacheConfig)
+     */
+    public static Cache open(@NonNull String name) {
+        return open(name, new CacheConfig());
+    }
 
-        Map<String, ?> all = CacheHolder.INSTANCE.getAll();
-        if (all != null) {
-            CacheHolder.INSTANCE.mRAMCacheData.putAll(all);
+    /**
+     * 打开指定名称的缓存实例，各实例的数据、容量限制及锁相互独立，后台线程共用
+     * <p>
+     * 键值数据保存在名为 "{@link #CACHE_NAME}_name" 的存储中，文件缓存默认保存在 cacheDir/{@link #CACHE_NAME}/name 目录；
+     * 实例已打开时直接返回，忽略 config。
+     *
+     * @param name   实例名称
+     * @param config 缓存配置
+     */
+    public static Cache open(@NonNull String name, @NonNull CacheConfig config) {
+        synchronized (sInstances) {
+            Cache cache = sInstances.get(name);
+            if (cache == null) {
+                Context context = CacheHolder.INSTANCE.mContext;
+                if (context == null) {
+                    try {
+                        context = getContext();
+                    } catch (Throwable ignored) {
+                    }
+                }
+                if (context == null) {
+                    throw new IllegalArgumentException("Cache not initialized, use Cache.init(Context) to initialize.");
+                }
+                cache = new Cache(name);
+                cache.configure(context, CACHE_NAME + "_" + name, config,
+                        new File(context.getCacheDir(), CACHE_NAME + File.separator + name));
+                sInstances.put(name, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * 关闭缓存实例，停止后台任务，释放内存缓存并关闭文件，磁盘数据保留，之后可通过 {@link #open(String, CacheConfig)} 重新打开
+     */
+    public void close() {
+        if (mName != null) {
+            synchronized (sInstances) {
+                if (sInstances.get(mName) == this) {
+                    sInstances.remove(mName);
+                }
+            }
+        }
+        setSweepInterval(0, TimeUnit.MILLISECONDS);
+        setStatsListener(null, 0, TimeUnit.MILLISECONDS);
+        AppManager.getInstance().removeMemoryListener(mRAMCacheData);
+        mRAMCacheData.clear();
+        closeStorage();
+    }
+
+    /**
+     * 关闭内存映射文件及文件缓存的日志、分段文件
+     */
+    private void closeStorage() {
+        if (mPreferences instanceof MappedPreferences) {
+            ((MappedPreferences) mPreferences).close();
+        }
+        if (mFileCache != null) {
+            mFileCache.close();
+        }
+    }
+
+    /**
+     * 实例名称，默认实例为空
+     */
+    @Nullable
+    public String getName() {
+        return mName;
+    }
+
+    private void configure(Context context, String preferencesName, CacheConfig config, File defaultDirectory) {
+        //重新配置时先关闭之前的文件
+        closeStorage();
+        mContext = context;
+        if (config.mEngine == Engine.MAPPED) {
+            mPreferences = new MappedPreferences(
+                    new File(context.getFilesDir(), MAPPED_DIR + File.separator + preferencesName));
+        } else {
+            mPreferences = context.getSharedPreferences(preferencesName, Context.MODE_PRIVATE);
+        }
+        mEditor = null;
+        loadExpiry(mPreferences);
+        //SharedPreferences本身已在内存中保存全部数据，内存缓存按需加载
+        if (config.mMemoryCache != null) {
+            setMemoryCache(config.mMemoryCache);
+        } else if (config.mMemorySize > 0) {
+            setMemoryCache(new MemoryCache(config.mMemorySize, config.mWeigher));
+        } else {
+            AppManager.getInstance().addMemoryListener(mRAMCacheData);
         }
-        CacheHolder.INSTANCE.mFileCache = new FileCache(
-                context.getCacheDir(), 1024 * 1024 * 50, Integer.MAX_VALUE);
+        mDefaultSerializer = config.mSerializer;
+        mFileCache = new FileCache(config.mDirectory != null ? config.mDirectory : defaultDirectory,
+                config.mMaxSize, config.mMaxCount, config.mConcurrent);
+        mFileCache.setDurability(config.mDurability);
+        mFileCache.setCompressThreshold(config.mCompressThreshold);
+        mFileCache.setSegmentThreshold(config.mSegmentThreshold);
+        mFileCache.setStatsCounter(mStats);
+        setSweepInterval(config.mSweepInterval, TimeUnit.MILLISECONDS);
     }
 
     private Cache() {
+        this(null);
+    }
+
+    private Cache(String name) {
+        mName = name;
     }
 
     public static Cache getInstance() {
         return CacheHolder.INSTANCE;
     }
 
+    /**
+     * 键值存储引擎
+     */
+    public enum Engine {
+        /**
+         * 系统 SharedPreferences，每次提交重写整个 XML 文件
+         */
+        PREFERENCES,
+        /**
+         * 内存映射文件，每次提交只追加变更记录，适合频繁写入的场景
+         */
+        MAPPED
+    }
+
+    /**
+     * {@link #getOrLoad} 的数据加载，在加载线程池中调用
+     */
+    public interface Loader<T> {
+
+        /**
+         * 加载数据，例如同步执行网络请求并解析
+         *
+         * @return 数据，返回 null 视为加载失败
+         */
+        T load() throws Exception;
+    }
+
+    /**
+     * 加载失败记录
+     */
+    private static class LoadFailure {
+
+        private final Throwable error;
+        private final int count;
+        private final long retryAt;
+
+        private LoadFailure(Throwable error, int count, long retryAt) {
+            this.error = error;
+            this.count = count;
+            this.retryAt = retryAt;
+        }
+    }
+
     private static class CacheHolder {
         @SuppressLint("StaticFieldLeak")
         private static final Cache INSTANCE = new Cache();
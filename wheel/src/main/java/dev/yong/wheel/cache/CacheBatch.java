@@ -0,0 +1,133 @@
+package dev.yong.wheel.cache;
+
+import androidx.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入，由 {@link Cache#batch(Transaction)} 或 {@link Cache#batchAsync(Transaction)} 创建
+ * <p>
+ * 记录的修改在事务结束后一次提交：SharedPreferences 只提交一次，文件缓存日志只落盘一次，
+ * 与逐个调用 {@link Cache} 的 put 方法不同，不会比较新旧值。
+ *
+ * @author coderyong
+ */
+public final class CacheBatch {
+
+    static final int TYPE_PREFERENCE = 1;
+    static final int TYPE_SERIALIZABLE = 2;
+    static final int TYPE_OBJECT = 3;
+    static final int TYPE_REMOVE = 4;
+
+    final List<Op> mOps = new ArrayList<>();
+
+    CacheBatch() {
+    }
+
+    public CacheBatch putString(String key, @Nullable String value) {
+        return putString(key, value, 0);
+    }
+
+    public CacheBatch putString(String key, @Nullable String value, long validity) {
+        return add(TYPE_PREFERENCE, key, value == null ? "" : value, null, validity);
+    }
+
+    public CacheBatch putInt(String key, int value) {
+        return putInt(key, value, 0);
+    }
+
+    public CacheBatch putInt(String key, int value, long validity) {
+        return add(TYPE_PREFERENCE, key, value, null, validity);
+    }
+
+    public CacheBatch putLong(String key, long value) {
+        return putLong(key, value, 0);
+    }
+
+    public CacheBatch putLong(String key, long value, long validity) {
+        return add(TYPE_PREFERENCE, key, value, null, validity);
+    }
+
+    public CacheBatch putFloat(String key, float value) {
+        return putFloat(key, value, 0);
+    }
+
+    public CacheBatch putFloat(String key, float value, long validity) {
+        return add(TYPE_PREFERENCE, key, value, null, validity);
+    }
+
+    public CacheBatch putBoolean(String key, boolean value) {
+        return putBoolean(key, value, 0);
+    }
+
+    public CacheBatch putBoolean(String key, boolean value, long validity) {
+        return add(TYPE_PREFERENCE, key, value, null, validity);
+    }
+
+    public CacheBatch putSerializable(String key, Serializable value) {
+        return putSerializable(key, value, 0);
+    }
+
+    /**
+     * 序列化器的选择与 {@link Cache#putSerializable(String, Serializable, long)} 相同
+     */
+    public CacheBatch putSerializable(String key, Serializable value, long validity) {
+        return add(TYPE_SERIALIZABLE, key, value, null, validity);
+    }
+
+    public <T> CacheBatch putSerializable(String key, T value, CacheSerializer<T> serializer, long validity) {
+        return add(TYPE_SERIALIZABLE, key, value, serializer, validity);
+    }
+
+    public CacheBatch putObject(String key, Object value) {
+        return putObject(key, value, 0);
+    }
+
+    public CacheBatch putObject(String key, Object value, long validity) {
+        return add(TYPE_OBJECT, key, value, null, validity);
+    }
+
+    /**
+     * 与 {@link Cache#remove(String)} 相同，移除内存及SharedPreferences中的数据
+     */
+    public CacheBatch remove(String key) {
+        return add(TYPE_REMOVE, key, null, null, 0);
+    }
+
+    private CacheBatch add(int type, String key, Object value, CacheSerializer<?> serializer, long validity) {
+        mOps.add(new Op(type, key, value, serializer, validity));
+        return this;
+    }
+
+    /**
+     * 批量写入事务
+     */
+    public interface Transaction {
+
+        /**
+         * 记录需要写入的数据
+         *
+         * @param batch 批量写入
+         */
+        void run(CacheBatch batch);
+    }
+
+    static final class Op {
+
+        final int type;
+        final String key;
+        final Object value;
+        final CacheSerializer<?> serializer;
+        final long validity;
+
+        Op(int type, String key, Object value, CacheSerializer<?> serializer, long validity) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.serializer = serializer;
+            this.validity = validity;
+        }
+    }
+}
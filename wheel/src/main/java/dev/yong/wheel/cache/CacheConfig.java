@@ -0,0 +1,161 @@
+package dev.yong.wheel.cache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存实例配置，用于 {@link Cache#open(String, CacheConfig)}
+ * <p>
+ * 每个实例拥有独立的内存缓存、键值存储及文件缓存目录，后台清理及文件读取线程由所有实例共用。
+ *
+ * @author coderyong
+ */
+public final class CacheConfig {
+
+    static final long DEFAULT_FILE_CACHE_SIZE = 1024 * 1024 * 50;
+
+    Cache.Engine mEngine = Cache.Engine.PREFERENCES;
+    File mDirectory;
+    long mMaxSize = DEFAULT_FILE_CACHE_SIZE;
+    int mMaxCount = Integer.MAX_VALUE;
+    boolean mConcurrent;
+    Durability mDurability = Durability.NONE;
+    int mCompressThreshold = -1;
+    int mSegmentThreshold = -1;
+    MemoryCache mMemoryCache;
+    long mMemorySize;
+    MemoryCache.Weigher mWeigher;
+    CacheSerializer<?> mSerializer;
+    long mSweepInterval = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 键值存储引擎，默认 {@link Cache.Engine#PREFERENCES}
+     */
+    public CacheConfig setEngine(@NonNull Cache.Engine engine) {
+        mEngine = engine;
+        return this;
+    }
+
+    /**
+     * 文件缓存目录，默认为 cacheDir 下以实例名称命名的目录
+     */
+    public CacheConfig setDirectory(@Nullable File directory) {
+        mDirectory = directory;
+        return this;
+    }
+
+    /**
+     * 文件缓存总大小上限，默认 50MB
+     */
+    public CacheConfig setMaxSize(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * 文件缓存数量上限，默认不限制
+     */
+    public CacheConfig setMaxCount(int maxCount) {
+        if (maxCount <= 0) {
+            throw new IllegalArgumentException("maxCount <= 0");
+        }
+        mMaxCount = maxCount;
+        return this;
+    }
+
+    /**
+     * 文件缓存是否使用并发模式（读取不加锁），适合多线程频繁读取的场景
+     */
+    public CacheConfig setConcurrent(boolean concurrent) {
+        mConcurrent = concurrent;
+        return this;
+    }
+
+    /**
+     * 文件缓存写入持久化策略，默认 {@link Durability#NONE}
+     */
+    public CacheConfig setDurability(@NonNull Durability durability) {
+        mDurability = durability;
+        return this;
+    }
+
+    /**
+     * 文件缓存压缩阈值，数据不小于该值时使用 Deflate 压缩存储，小于0时不压缩（默认）
+     */
+    public CacheConfig setCompressThreshold(int threshold) {
+        mCompressThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * 文件缓存分段阈值，写入数据（含文件头）小于该值时追加到分段文件而不是单独的文件，小于等于0时不使用分段（默认）
+     */
+    public CacheConfig setSegmentThreshold(int threshold) {
+        mSegmentThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * 内存缓存，优先于 {@link #setMemorySize(long, MemoryCache.Weigher)}
+     */
+    public CacheConfig setMemoryCache(@Nullable MemoryCache memoryCache) {
+        mMemoryCache = memoryCache;
+        return this;
+    }
+
+    /**
+     * 内存缓存容量及淘汰时的大小计算方式，默认为最大可用内存的 1/32（估算字节数）
+     *
+     * @param maxWeight 容量上限
+     * @param weigher   数据大小计算方式，为空时使用 {@link MemoryCache#DEFAULT_WEIGHER}
+     */
+    public CacheConfig setMemorySize(long maxWeight, @Nullable MemoryCache.Weigher weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight <= 0");
+        }
+        mMemorySize = maxWeight;
+        mWeigher = weigher;
+        return this;
+    }
+
+    /**
+     * putSerializable 默认使用的序列化器，未设置时使用 Java 序列化，
+     * 通过 {@link Cache#registerSerializer(Class, CacheSerializer)} 按类型设置的序列化器优先
+     */
+    public CacheConfig setSerializer(@Nullable CacheSerializer<?> serializer) {
+        mSerializer = serializer;
+        return this;
+    }
+
+    /**
+     * 过期数据清理间隔，默认 1 分钟，小于等于0时不定期清理
+     */
+    public CacheConfig setSweepInterval(long interval, @NonNull TimeUnit unit) {
+        mSweepInterval = unit.toMillis(interval);
+        return this;
+    }
+
+    /**
+     * 写入持久化策略
+     */
+    public enum Durability {
+        /**
+         * 不主动同步，依赖系统回写；进程崩溃不会产生半个文件，断电后损坏的文件在读取时丢弃
+         */
+        NONE,
+        /**
+         * 重命名前同步缓存文件
+         */
+        DATA,
+        /**
+         * 同步缓存文件与索引日志
+         */
+        FULL
+    }
+}
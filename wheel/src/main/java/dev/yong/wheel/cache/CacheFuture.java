@@ -0,0 +1,233 @@
+package dev.yong.wheel.cache;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 缓存异步操作结果
+ * <p>
+ * 可通过 {@link #get()} 阻塞等待，也可通过 {@link #addCallback(Executor, Callback)} 注册回调；
+ * 注册时已完成（如内存命中）则直接在当前线程回调，不切换线程。
+ *
+ * @author coderyong
+ */
+public final class CacheFuture<T> implements Future<T> {
+
+    /**
+     * 在主线程回调
+     */
+    public static final Executor MAIN = new Executor() {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                command.run();
+            } else {
+                mHandler.post(command);
+            }
+        }
+    };
+
+    /**
+     * 在完成结果的线程回调，已完成时在当前线程回调
+     */
+    static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    private boolean mDone;
+    private boolean mCancelled;
+    private T mValue;
+    private Throwable mError;
+    private List<Runnable> mCallbacks = new ArrayList<>();
+
+    CacheFuture() {
+    }
+
+    /**
+     * 创建已完成的结果
+     */
+    static <T> CacheFuture<T> completed(@Nullable T value) {
+        CacheFuture<T> future = new CacheFuture<>();
+        future.complete(value);
+        return future;
+    }
+
+    /**
+     * 创建跟随该结果完成的新结果，用于多个调用方共享同一个操作，取消新结果不影响该结果及其他调用方
+     */
+    @SuppressWarnings("unchecked")
+    <R> CacheFuture<R> fork() {
+        final CacheFuture<R> future = new CacheFuture<>();
+        addCallback(DIRECT, new Callback<T>() {
+            @Override
+            public void onResult(@Nullable T value) {
+                future.complete((R) value);
+            }
+
+            @Override
+            public void onError(@NonNull Throwable error) {
+                future.fail(error);
+            }
+        });
+        return future;
+    }
+
+    boolean complete(@Nullable T value) {
+        return finish(value, null, false);
+    }
+
+    boolean fail(@NonNull Throwable error) {
+        return finish(null, error, false);
+    }
+
+    /**
+     * 注册完成回调
+     *
+     * @param executor 回调执行的线程，如 {@link #MAIN}；已完成时忽略，直接在当前线程回调
+     * @param callback 回调
+     */
+    public CacheFuture<T> addCallback(@NonNull final Executor executor, @NonNull final Callback<? super T> callback) {
+        synchronized (this) {
+            if (!mDone) {
+                mCallbacks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                deliver(callback);
+                            }
+                        });
+                    }
+                });
+                return this;
+            }
+        }
+        deliver(callback);
+        return this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return finish(null, null, true);
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mDone;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!mDone) {
+            wait();
+        }
+        return getValue();
+    }
+
+    @Override
+    public synchronized T get(long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!mDone) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getValue();
+    }
+
+    private T getValue() throws ExecutionException {
+        if (mCancelled) {
+            throw new CancellationException();
+        }
+        if (mError != null) {
+            throw new ExecutionException(mError);
+        }
+        return mValue;
+    }
+
+    private boolean finish(T value, Throwable error, boolean cancelled) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            if (mDone) {
+                return false;
+            }
+            mDone = true;
+            mValue = value;
+            mError = error;
+            mCancelled = cancelled;
+            callbacks = mCallbacks;
+            mCallbacks = null;
+            notifyAll();
+        }
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+        return true;
+    }
+
+    private void deliver(Callback<? super T> callback) {
+        T value;
+        Throwable error;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            value = mValue;
+            error = mError;
+        }
+        if (error != null) {
+            callback.onError(error);
+        } else {
+            callback.onResult(value);
+        }
+    }
+
+    /**
+     * 异步结果回调
+     */
+    public interface Callback<T> {
+
+        /**
+         * 操作完成
+         *
+         * @param value 结果，缓存不存在时为空
+         */
+        void onResult(@Nullable T value);
+
+        /**
+         * 操作失败，默认打印异常信息
+         *
+         * @param error 异常信息
+         */
+        default void onError(@NonNull Throwable error) {
+            error.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package dev.yong.wheel.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 缓存序列化器
+ * <p>
+ * {@link #id()} 会写入缓存文件头，读取时据此选择对应的序列化器，
+ * 因此同一个 id 必须始终对应同一种数据格式。内置实现见 {@link CacheSerializers}。
+ *
+ * @author coderyong
+ */
+public interface CacheSerializer<T> {
+
+    /**
+     * 序列化器标识，0~15 保留给内置实现
+     *
+     * @return 标识
+     */
+    byte id();
+
+    /**
+     * 序列化
+     *
+     * @param value 缓存对象
+     * @param out   输出流，由调用方关闭
+     */
+    void serialize(T value, OutputStream out) throws IOException;
+
+    /**
+     * 反序列化
+     *
+     * @param in 输入流，由调用方关闭
+     * @return 缓存对象
+     */
+    T deserialize(InputStream in) throws IOException;
+}
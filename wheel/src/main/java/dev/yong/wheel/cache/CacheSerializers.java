@@ -0,0 +1,306 @@
+package dev.yong.wheel.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import dev.yong.wheel.utils.JSON;
+
+/**
+ * 内置缓存序列化器及序列化器注册表
+ *
+ * @author coderyong
+ */
+public final class CacheSerializers {
+
+    /**
+     * 原始 byte 数据，不经过序列化
+     */
+    public static final byte ID_RAW = 0;
+    public static final byte ID_JAVA = 1;
+    public static final byte ID_GSON = 2;
+    public static final byte ID_BINARY = 3;
+
+    /**
+     * Java 序列化，兼容性最好，但速度慢、体积大
+     */
+    public static final CacheSerializer<Serializable> JAVA = new JavaSerializer();
+    /**
+     * 紧凑二进制格式，支持 null、基本类型包装类、String、byte[] 以及由它们组成的 List/Map
+     */
+    public static final CacheSerializer<Object> BINARY = new BinarySerializer();
+
+    private static final Map<Byte, CacheSerializer<?>> SERIALIZERS = new ConcurrentHashMap<>();
+
+    static {
+        register(JAVA);
+        register(BINARY);
+    }
+
+    private CacheSerializers() {
+    }
+
+    /**
+     * 注册序列化器，读取时根据缓存文件头中的 id 查找
+     *
+     * @param serializer 序列化器
+     */
+    public static void register(CacheSerializer<?> serializer) {
+        SERIALIZERS.put(serializer.id(), serializer);
+    }
+
+    /**
+     * 根据 id 获取已注册的序列化器
+     *
+     * @param id 序列化器标识
+     * @return 未注册时返回 null
+     */
+    public static CacheSerializer<?> get(byte id) {
+        return SERIALIZERS.get(id);
+    }
+
+    /**
+     * 基于 {@link JSON} 的序列化器
+     * <p>
+     * 所有类型共用 {@link #ID_GSON}，数据前记录类型名称，读取时类型不一致则抛出 {@link IOException}
+     *
+     * @param type 数据类型
+     */
+    public static <T> CacheSerializer<T> gson(Type type) {
+        return new GsonSerializer<>(type, ID_GSON);
+    }
+
+    /**
+     * 基于 {@link JSON} 的序列化器
+     * <p>
+     * 指定独立的 id 并 {@link #register(CacheSerializer)} 后，不指定序列化器的读取（如 Cache.getSerializable）也可以还原该类型
+     *
+     * @param type 数据类型
+     * @param id   序列化器标识，需大于 15
+     */
+    public static <T> CacheSerializer<T> gson(Type type, byte id) {
+        return new GsonSerializer<>(type, id);
+    }
+
+    private static class JavaSerializer implements CacheSerializer<Serializable> {
+
+        @Override
+        public byte id() {
+            return ID_JAVA;
+        }
+
+        @Override
+        public void serialize(Serializable value, OutputStream out) throws IOException {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(value);
+            oos.flush();
+        }
+
+        @Override
+        public Serializable deserialize(InputStream in) throws IOException {
+            try {
+                return (Serializable) new ObjectInputStream(in).readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * 数据格式：typeName(UTF) | json
+     */
+    private static class GsonSerializer<T> implements CacheSerializer<T> {
+
+        private final Type mType;
+        private final String mTypeName;
+        private final byte mId;
+
+        private GsonSerializer(Type type, byte id) {
+            mType = type;
+            mTypeName = TypeToken.get(type).toString();
+            mId = id;
+        }
+
+        @Override
+        public byte id() {
+            return mId;
+        }
+
+        @Override
+        public void serialize(T value, OutputStream out) throws IOException {
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeUTF(mTypeName);
+            dos.flush();
+            Writer writer = new OutputStreamWriter(out, "UTF-8");
+            writer.write(JSON.toJson(value, mType));
+            writer.flush();
+        }
+
+        @Override
+        public T deserialize(InputStream in) throws IOException {
+            String typeName = new DataInputStream(in).readUTF();
+            if (!mTypeName.equals(typeName)) {
+                throw new IOException("Cached type " + typeName + " does not match " + mTypeName);
+            }
+            //直接从输入流解析，不先读取为完整的字符串
+            Reader reader = new InputStreamReader(in, "UTF-8");
+            try {
+                return JSON.fromJson(reader, mType);
+            } catch (JsonParseException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static class BinarySerializer implements CacheSerializer<Object> {
+
+        private static final int NULL = 0;
+        private static final int BOOLEAN = 1;
+        private static final int BYTE = 2;
+        private static final int SHORT = 3;
+        private static final int INT = 4;
+        private static final int LONG = 5;
+        private static final int FLOAT = 6;
+        private static final int DOUBLE = 7;
+        private static final int STRING = 8;
+        private static final int BYTES = 9;
+        private static final int LIST = 10;
+        private static final int MAP = 11;
+
+        @Override
+        public byte id() {
+            return ID_BINARY;
+        }
+
+        @Override
+        public void serialize(Object value, OutputStream out) throws IOException {
+            DataOutputStream dos = new DataOutputStream(out);
+            write(dos, value);
+            dos.flush();
+        }
+
+        @Override
+        public Object deserialize(InputStream in) throws IOException {
+            return read(new DataInputStream(in));
+        }
+
+        private void write(DataOutputStream out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Byte) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) value);
+            } else if (value instanceof Short) {
+                out.writeByte(SHORT);
+                out.writeShort((Short) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof String) {
+                out.writeByte(STRING);
+                byte[] bytes = ((String) value).getBytes("UTF-8");
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else if (value instanceof byte[]) {
+                out.writeByte(BYTES);
+                out.writeInt(((byte[]) value).length);
+                out.write((byte[]) value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object item : list) {
+                    write(out, item);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(MAP);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    write(out, entry.getKey());
+                    write(out, entry.getValue());
+                }
+            } else {
+                throw new IOException("Unsupported type: " + value.getClass().getName());
+            }
+        }
+
+        private Object read(DataInputStream in) throws IOException {
+            int type = in.readByte();
+            switch (type) {
+                case NULL:
+                    return null;
+                case BOOLEAN:
+                    return in.readBoolean();
+                case BYTE:
+                    return in.readByte();
+                case SHORT:
+                    return in.readShort();
+                case INT:
+                    return in.readInt();
+                case LONG:
+                    return in.readLong();
+                case FLOAT:
+                    return in.readFloat();
+                case DOUBLE:
+                    return in.readDouble();
+                case STRING:
+                    return new String(readBytes(in), "UTF-8");
+                case BYTES:
+                    return readBytes(in);
+                case LIST:
+                    int size = in.readInt();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(read(in));
+                    }
+                    return list;
+                case MAP:
+                    int count = in.readInt();
+                    Map<Object, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < count; i++) {
+                        map.put(read(in), read(in));
+                    }
+                    return map;
+                default:
+                    throw new IOException("Unknown type: " + type);
+            }
+        }
+
+        private byte[] readBytes(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package dev.yong.wheel.cache;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * 缓存统计快照，由 {@link Cache#stats()} 获取
+ * <p>
+ * 时间单位均为纳秒；文件读取耗时按 {@link #LOAD_TIME_BUCKETS} 分段统计，
+ * 第 i 段为耗时小于 LOAD_TIME_BUCKETS[i] 毫秒（且不小于前一段上限）的次数，最后一段为超出所有上限的次数。
+ *
+ * @author coderyong
+ */
+public final class CacheStats {
+
+    /**
+     * 文件读取耗时分段上限（毫秒）
+     */
+    public static final long[] LOAD_TIME_BUCKETS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512};
+
+    private final long mMemoryHitCount;
+    private final long mMemoryMissCount;
+    private final long mFileHitCount;
+    private final long mFileMissCount;
+    private final long mTotalLoadTime;
+    private final long[] mLoadTimeHistogram;
+    private final long mMemoryEvictionCount;
+    private final long mSizeEvictionCount;
+    private final long mCountEvictionCount;
+    private final long mExpiryEvictionCount;
+    private final long mBytesRead;
+    private final long mBytesWritten;
+    private final long mSerializationCount;
+    private final long mSerializationTime;
+    private final long mDeserializationCount;
+    private final long mDeserializationTime;
+
+    CacheStats(long memoryHitCount, long memoryMissCount, long fileHitCount, long fileMissCount,
+               long totalLoadTime, long[] loadTimeHistogram, long memoryEvictionCount,
+               long sizeEvictionCount, long countEvictionCount, long expiryEvictionCount,
+               long bytesRead, long bytesWritten, long serializationCount, long serializationTime,
+               long deserializationCount, long deserializationTime) {
+        mMemoryHitCount = memoryHitCount;
+        mMemoryMissCount = memoryMissCount;
+        mFileHitCount = fileHitCount;
+        mFileMissCount = fileMissCount;
+        mTotalLoadTime = totalLoadTime;
+        mLoadTimeHistogram = loadTimeHistogram;
+        mMemoryEvictionCount = memoryEvictionCount;
+        mSizeEvictionCount = sizeEvictionCount;
+        mCountEvictionCount = countEvictionCount;
+        mExpiryEvictionCount = expiryEvictionCount;
+        mBytesRead = bytesRead;
+        mBytesWritten = bytesWritten;
+        mSerializationCount = serializationCount;
+        mSerializationTime = serializationTime;
+        mDeserializationCount = deserializationCount;
+        mDeserializationTime = deserializationTime;
+    }
+
+    public long memoryHitCount() {
+        return mMemoryHitCount;
+    }
+
+    public long memoryMissCount() {
+        return mMemoryMissCount;
+    }
+
+    public double memoryHitRate() {
+        return rate(mMemoryHitCount, mMemoryMissCount);
+    }
+
+    public long fileHitCount() {
+        return mFileHitCount;
+    }
+
+    public long fileMissCount() {
+        return mFileMissCount;
+    }
+
+    public double fileHitRate() {
+        return rate(mFileHitCount, mFileMissCount);
+    }
+
+    /**
+     * 文件读取次数（包括未命中）
+     */
+    public long loadCount() {
+        return mFileHitCount + mFileMissCount;
+    }
+
+    /**
+     * 文件读取总耗时（纳秒）
+     */
+    public long totalLoadTime() {
+        return mTotalLoadTime;
+    }
+
+    /**
+     * 文件读取平均耗时（纳秒）
+     */
+    public double averageLoadTime() {
+        long count = loadCount();
+        return count == 0 ? 0 : (double) mTotalLoadTime / count;
+    }
+
+    /**
+     * 文件读取耗时分布，长度为 LOAD_TIME_BUCKETS.length + 1
+     */
+    public long[] loadTimeHistogram() {
+        return mLoadTimeHistogram.clone();
+    }
+
+    /**
+     * 内存缓存因容量不足淘汰的次数
+     */
+    public long memoryEvictionCount() {
+        return mMemoryEvictionCount;
+    }
+
+    /**
+     * 文件缓存因总大小超限淘汰的次数
+     */
+    public long sizeEvictionCount() {
+        return mSizeEvictionCount;
+    }
+
+    /**
+     * 文件缓存因数量超限淘汰的次数
+     */
+    public long countEvictionCount() {
+        return mCountEvictionCount;
+    }
+
+    /**
+     * 因过期被移除的次数（包括读取时发现过期及后台清理）
+     */
+    public long expiryEvictionCount() {
+        return mExpiryEvictionCount;
+    }
+
+    public long bytesRead() {
+        return mBytesRead;
+    }
+
+    public long bytesWritten() {
+        return mBytesWritten;
+    }
+
+    public long serializationCount() {
+        return mSerializationCount;
+    }
+
+    /**
+     * 序列化总耗时（纳秒）
+     */
+    public long serializationTime() {
+        return mSerializationTime;
+    }
+
+    public long deserializationCount() {
+        return mDeserializationCount;
+    }
+
+    /**
+     * 反序列化总耗时（纳秒）
+     */
+    public long deserializationTime() {
+        return mDeserializationTime;
+    }
+
+    /**
+     * 与之前的快照相减，得到两次快照之间的增量
+     */
+    public CacheStats minus(@NonNull CacheStats other) {
+        long[] histogram = new long[mLoadTimeHistogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = Math.max(0, mLoadTimeHistogram[i] - other.mLoadTimeHistogram[i]);
+        }
+        return new CacheStats(
+                Math.max(0, mMemoryHitCount - other.mMemoryHitCount),
+                Math.max(0, mMemoryMissCount - other.mMemoryMissCount),
+                Math.max(0, mFileHitCount - other.mFileHitCount),
+                Math.max(0, mFileMissCount - other.mFileMissCount),
+                Math.max(0, mTotalLoadTime - other.mTotalLoadTime),
+                histogram,
+                Math.max(0, mMemoryEvictionCount - other.mMemoryEvictionCount),
+                Math.max(0, mSizeEvictionCount - other.mSizeEvictionCount),
+                Math.max(0, mCountEvictionCount - other.mCountEvictionCount),
+                Math.max(0, mExpiryEvictionCount - other.mExpiryEvictionCount),
+                Math.max(0, mBytesRead - other.mBytesRead),
+                Math.max(0, mBytesWritten - other.mBytesWritten),
+                Math.max(0, mSerializationCount - other.mSerializationCount),
+                Math.max(0, mSerializationTime - other.mSerializationTime),
+                Math.max(0, mDeserializationCount - other.mDeserializationCount),
+                Math.max(0, mDeserializationTime - other.mDeserializationTime));
+    }
+
+    private static double rate(long hit, long miss) {
+        long count = hit + miss;
+        return count == 0 ? 1.0 : (double) hit / count;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "CacheStats[memoryHits=" + mMemoryHitCount + ",memoryMisses=" + mMemoryMissCount
+                + ",fileHits=" + mFileHitCount + ",fileMisses=" + mFileMissCount
+                + ",totalLoadTime=" + mTotalLoadTime + ",loadTimeHistogram=" + Arrays.toString(mLoadTimeHistogram)
+                + ",memoryEvictions=" + mMemoryEvictionCount + ",sizeEvictions=" + mSizeEvictionCount
+                + ",countEvictions=" + mCountEvictionCount + ",expiryEvictions=" + mExpiryEvictionCount
+                + ",bytesRead=" + mBytesRead + ",bytesWritten=" + mBytesWritten
+                + ",serializations=" + mSerializationCount + ",serializationTime=" + mSerializationTime
+                + ",deserializations=" + mDeserializationCount + ",deserializationTime=" + mDeserializationTime + "]";
+    }
+
+    /**
+     * 统计数据监听，用于定期导出到监控系统
+     */
+    public interface Listener {
+
+        /**
+         * 定期回调，在缓存后台线程执行
+         *
+         * @param stats 当前快照（累计值），可通过 {@link CacheStats#minus(CacheStats)} 计算增量
+         */
+        void onStats(@NonNull CacheStats stats);
+    }
+}
@@ -3,54 +3,203 @@ package dev.yong.wheel.cache;
 import android.annotation.SuppressLint;
 import android.app.Application;
 import android.content.Context;
-import android.os.StatFs;
 import android.text.TextUtils;
-import android.util.LruCache;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
-import java.io.RandomAccessFile;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import okio.Okio;
+import okio.Sink;
+import okio.Source;
+
+/**
+ * 磁盘文件LRU缓存
+ * <p>
+ * 缓存记录以 PUT/READ/REMOVE 操作追加到 {@link #JOURNAL_FILE} 日志中，写入经过缓冲，
+ * 启动时按顺序重放恢复访问顺序；冗余记录过多时以当前记录重写日志。
+ * <p>
+ * 按文件实际字节数统计容量，超出上限（{@link #setMaxSize(long)}、{@link #setMaxSizePercent(float)}）
+ * 时淘汰最久未访问的文件；后台定期检查磁盘剩余空间，剩余空间不足时同步缩减缓存。
+ * <p>
+ * 通过 {@link #edit(String)} 以流的方式写入缓存，{@link #getSnapshot(String)} 以流的方式读取缓存。
+ * <p>
+ * 缓存记录在后台线程加载（{@link #ready()}），加载完成前的读取短暂等待后直接检查缓存文件是否存在。
+ *
+ * @author coderyong
+ */
 public class DiskLruCache {
 
     private static final String TAG = "LruCache";
+    static final String JOURNAL_FILE = "journal";
+    static final String JOURNAL_FILE_TMP = "journal.tmp";
+    private static final String TMP_SUFFIX = ".tmp";
+    static final String MAGIC = "dev.yong.wheel.cache.DiskLruCache";
+    static final String VERSION = "1";
+
+    private static final String PUT = "PUT";
+    private static final String READ = "READ";
+    private static final String REMOVE = "REMOVE";
+    /**
+     * 冗余记录数达到该值（且不少于有效记录数）时压缩日志
+     */
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+
+    /**
+     * 默认缓存总大小上限
+     */
+    static final long DEFAULT_MAX_SIZE = 200 * 1048576L;
+    /**
+     * 磁盘剩余空间保留值，剩余空间不足时缩减缓存，避免缓存占满磁盘
+     */
+    private static final long MIN_FREE_SPACE = 50 * 1048576L;
+    /**
+     * 检查磁盘剩余空间的最小间隔
+     */
+    private static final long SPACE_CHECK_INTERVAL = 60 * 1000;
+    /**
+     * 缓存记录未加载完成时读取的最长等待时间（毫秒）
+     */
+    private static final long READY_TIMEOUT = 50;
 
     private static String sCacheDir;
-    private final LruCache<String, File> mLruCache;
+    /**
+     * 缓存记录，按访问顺序排列（最久未访问的在最前），所有访问需持有自身锁
+     */
+    private final LinkedHashMap<String, Record> mRecords = new LinkedHashMap<>(16, 0.75f, true);
+    private long mSize;
+    private volatile long mMaxSize = DEFAULT_MAX_SIZE;
+    /**
+     * 按磁盘剩余空间计算的上限，由后台检查更新
+     */
+    private volatile long mSpaceLimit = Long.MAX_VALUE;
+    private final AtomicBoolean mSpaceCheckScheduled = new AtomicBoolean();
+    private volatile long mLastSpaceCheck;
+    /**
+     * 正在编辑的缓存
+     */
+    private final Set<String> mEditing = new HashSet<>();
+    private final CacheFuture<Boolean> mReady = new CacheFuture<>();
+    private final Object mJournalLock = new Object();
+    private Writer mJournalWriter;
+    private int mRedundantOpCount;
 
     private DiskLruCache() {
-        mLruCache = new LruCache<String, File>((int) (loadDiskUsableSpace() / 1048576)) {
+        sCacheDir = loadCacheDir();
+        //读取日志涉及磁盘IO，不在类加载时执行
+        Cache.ioExecutor().execute(new Runnable() {
             @Override
-            protected int sizeOf(String key, File value) {
-                int size = super.sizeOf(key, value);
+            public void run() {
                 try {
-                    //获取文件大小（单位：MB）
-                    size = (int) (value.length() / 1048576);
+                    readJournal();
+                    trimToSize();
                 } catch (Throwable ignored) {
+                } finally {
+                    mReady.complete(Boolean.TRUE);
                 }
-                return size;
+                scheduleSpaceCheck();
             }
+        });
+    }
+
+    public String getCacheDir() {
+        return sCacheDir;
+    }
 
+    /**
+     * 缓存记录加载完成的通知，加载前的写入在完成后依次记录
+     *
+     * @return 新的 Future，取消不影响加载
+     */
+    public CacheFuture<Boolean> ready() {
+        final CacheFuture<Boolean> future = new CacheFuture<>();
+        mReady.addCallback(CacheFuture.DIRECT, new CacheFuture.Callback<Boolean>() {
             @Override
-            protected void entryRemoved(boolean evicted, String key, File oldValue, File newValue) {
-                super.entryRemoved(evicted, key, oldValue, newValue);
-                try {
-                    if (evicted || !oldValue.equals(newValue)) {
-                        if (oldValue.delete()) {
-                            resetCacheRecord();
-                        }
-                    }
-                } catch (Throwable ignored) {
-                }
+            public void onResult(Boolean result) {
+                future.complete(result);
             }
-        };
-        initCacheRecord();
+        });
+        return future;
     }
 
-    public String getCacheDir() {
-        return sCacheDir;
+    /**
+     * 短暂等待缓存记录加载完成
+     *
+     * @return 是否已加载完成
+     */
+    private boolean awaitReady() {
+        if (mReady.isDone()) {
+            return true;
+        }
+        try {
+            mReady.get(READY_TIMEOUT, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 设置缓存总大小上限，默认 200MB
+     *
+     * @param maxSize 上限（字节）
+     */
+    public void setMaxSize(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+        trimToSize();
+    }
+
+    /**
+     * 按缓存目录所在磁盘总容量的百分比设置缓存总大小上限
+     *
+     * @param percent 百分比，取值 (0, 100]
+     */
+    public void setMaxSizePercent(float percent) {
+        if (percent <= 0 || percent > 100) {
+            throw new IllegalArgumentException("percent must be in (0, 100]");
+        }
+        long totalSpace = sCacheDir == null ? 0 : new File(sCacheDir).getTotalSpace();
+        setMaxSize(totalSpace > 0 ? (long) (totalSpace * (percent / 100)) : DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * 缓存总大小上限（字节）
+     */
+    public long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * 当前缓存总大小（字节）
+     */
+    public long size() {
+        synchronized (mRecords) {
+            return mSize;
+        }
     }
 
     /**
@@ -61,7 +210,21 @@ public class DiskLruCache {
      */
     public File get(String url) {
         try {
-            return mLruCache.get(generateKey(url));
+            String key = generateKey(url);
+            if (!awaitReady()) {
+                //缓存记录尚未加载完成，直接检查编辑器写入的缓存文件
+                File file = new File(sCacheDir, key);
+                return sCacheDir != null && file.exists() ? file : null;
+            }
+            Record record;
+            synchronized (mRecords) {
+                record = mRecords.get(key);
+            }
+            if (record == null) {
+                return null;
+            }
+            journalRead(key);
+            return record.file;
         } catch (Throwable e) {
             return null;
         }
@@ -75,25 +238,144 @@ public class DiskLruCache {
      */
     public void put(String url, File value) {
         try {
-            String key = generateKey(url);
-            //检查文件是否已经存在
-            Map<String, File> snapshot = mLruCache.snapshot();
-            if (snapshot != null && !snapshot.isEmpty()) {
-                File file = snapshot.get(key);
-                if (file != null && file.equals(value)) {
-                    return;
+            record(generateKey(url), value, false);
+        } catch (Throwable ignored) {
+        }
+    }
+
+    /**
+     * 获取缓存快照，快照持有已打开的输入流，之后文件被替换或淘汰也能完整读取
+     *
+     * @param url 文件来源地址
+     * @return 缓存快照，需由调用方关闭；没有缓存时返回 null
+     */
+    public Snapshot getSnapshot(String url) {
+        File file = get(url);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new Snapshot(file, new FileInputStream(file));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 编辑缓存文件，数据先写入临时文件，{@link Editor#commit()} 时原子替换并记录
+     *
+     * @param url 文件来源地址
+     * @return 编辑器，同一 url 正在编辑或缓存目录不可用时返回 null
+     */
+    public Editor edit(String url) {
+        if (sCacheDir == null) {
+            return null;
+        }
+        String key = generateKey(url);
+        synchronized (mEditing) {
+            if (!mEditing.add(key)) {
+                return null;
+            }
+        }
+        File cacheDir = new File(sCacheDir);
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            endEdit(key);
+            return null;
+        }
+        return new Editor(key, new File(cacheDir, key));
+    }
+
+    private void endEdit(String key) {
+        synchronized (mEditing) {
+            mEditing.remove(key);
+        }
+    }
+
+    /**
+     * 记录缓存文件
+     *
+     * @param replaced 文件是否已在原路径被替换，替换后需重新记录大小
+     */
+    private void record(final String key, final File value, final boolean replaced) {
+        if (!mReady.isDone()) {
+            //等待加载完成后记录，避免被日志重放覆盖
+            mReady.addCallback(CacheFuture.DIRECT, new CacheFuture.Callback<Boolean>() {
+                @Override
+                public void onResult(Boolean result) {
+                    record(key, value, replaced);
                 }
+            });
+            return;
+        }
+        Record previous;
+        synchronized (mRecords) {
+            previous = mRecords.get(key);
+            //检查文件是否已经存在
+            if (!replaced && previous != null && previous.file.equals(value)) {
+                return;
             }
-            mLruCache.put(key, value);
-            File cacheDir = new File(sCacheDir, TAG);
-            if (cacheDir.exists() || cacheDir.createNewFile()) {
-                RandomAccessFile raf = new RandomAccessFile(cacheDir, "rw");
-                raf.seek(raf.length());
-                raf.writeBytes(key + "," + value.getAbsolutePath() + "\n");
-                raf.close();
+            Record record = new Record(value, value.length());
+            mRecords.put(key, record);
+            mSize += record.length;
+            if (previous != null) {
+                mSize -= previous.length;
             }
-        } catch (Throwable ignored) {
         }
+        if (previous != null && !previous.file.equals(value)) {
+            previous.file.delete();
+        }
+        journalPut(key, value);
+        trimToSize();
+        if (System.currentTimeMillis() - mLastSpaceCheck >= SPACE_CHECK_INTERVAL) {
+            scheduleSpaceCheck();
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的文件，直到不超过上限及磁盘剩余空间限制
+     */
+    private void trimToSize() {
+        List<Map.Entry<String, Record>> evicted = new ArrayList<>();
+        synchronized (mRecords) {
+            long limit = Math.min(mMaxSize, mSpaceLimit);
+            Iterator<Map.Entry<String, Record>> iterator = mRecords.entrySet().iterator();
+            //至少保留最近写入的一个文件
+            while (mSize > limit && mRecords.size() > 1 && iterator.hasNext()) {
+                Map.Entry<String, Record> eldest = iterator.next();
+                iterator.remove();
+                mSize -= eldest.getValue().length;
+                evicted.add(eldest);
+            }
+        }
+        for (Map.Entry<String, Record> eldest : evicted) {
+            eldest.getValue().file.delete();
+            journalRemove(eldest.getKey());
+        }
+    }
+
+    /**
+     * 在后台检查磁盘剩余空间，剩余空间低于 {@link #MIN_FREE_SPACE} 时按差值缩减缓存
+     */
+    private void scheduleSpaceCheck() {
+        if (!mSpaceCheckScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        Cache.ioExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mLastSpaceCheck = System.currentTimeMillis();
+                    long usableSpace = new File(sCacheDir).getUsableSpace();
+                    if (usableSpace > 0) {
+                        mSpaceLimit = Math.max(0, size() + usableSpace - MIN_FREE_SPACE);
+                        trimToSize();
+                    }
+                } catch (Throwable ignored) {
+                } finally {
+                    mSpaceCheckScheduled.set(false);
+                }
+            }
+        });
     }
 
     /**
@@ -118,46 +400,222 @@ public class DiskLruCache {
     }
 
     /**
-     * 初始化缓存记录
+     * 读取日志恢复缓存记录，日志不存在时迁移旧版本的记录文件
+     */
+    private void readJournal() {
+        synchronized (mJournalLock) {
+            //按访问顺序重放，文件已不存在的记录直接丢弃
+            LinkedHashMap<String, File> records = new LinkedHashMap<>(16, 0.75f, true);
+            File journalFile = new File(sCacheDir, JOURNAL_FILE);
+            boolean restored = false;
+            int lineCount = 0;
+            if (journalFile.exists()) {
+                BufferedReader reader = null;
+                try {
+                    reader = new BufferedReader(new InputStreamReader(
+                            new FileInputStream(journalFile), "UTF-8"), 8192);
+                    if (MAGIC.equals(reader.readLine()) && VERSION.equals(reader.readLine())) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            readJournalLine(line, records);
+                            lineCount++;
+                        }
+                        restored = true;
+                    }
+                } catch (IOException ignored) {
+                } finally {
+                    if (reader != null) {
+                        try {
+                            reader.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+            if (!restored) {
+                records.clear();
+                readLegacyRecord(records);
+            }
+            synchronized (mRecords) {
+                for (Map.Entry<String, File> record : records.entrySet()) {
+                    File file = record.getValue();
+                    if (file.exists()) {
+                        Record entry = new Record(file, file.length());
+                        mRecords.put(record.getKey(), entry);
+                        mSize += entry.length;
+                    }
+                }
+            }
+            deleteTmpFiles();
+            if (restored) {
+                mRedundantOpCount = lineCount - records.size();
+                try {
+                    mJournalWriter = newJournalWriter(journalFile);
+                } catch (IOException ignored) {
+                }
+            } else {
+                rebuildJournal();
+                new File(sCacheDir, TAG).delete();
+            }
+        }
+    }
+
+    /**
+     * 删除进程中断时未提交的编辑
+     */
+    private static void deleteTmpFiles() {
+        File[] files = sCacheDir == null ? null : new File(sCacheDir).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(TMP_SUFFIX)) {
+                file.delete();
+            }
+        }
+    }
+
+    private static void readJournalLine(String line, Map<String, File> records) {
+        String[] parts = line.split(" ", 3);
+        if (PUT.equals(parts[0]) && parts.length == 3) {
+            records.put(parts[1], new File(parts[2]));
+        } else if (READ.equals(parts[0]) && parts.length == 2) {
+            //get 会将记录移动到访问顺序末尾
+            records.get(parts[1]);
+        } else if (REMOVE.equals(parts[0]) && parts.length == 2) {
+            records.remove(parts[1]);
+        }
+    }
+
+    /**
+     * 读取旧版本的记录文件（key,path）
      */
-    private void initCacheRecord() {
+    private static void readLegacyRecord(Map<String, File> records) {
+        File recordFile = new File(sCacheDir, TAG);
+        if (!recordFile.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
         try {
-            RandomAccessFile raf = new RandomAccessFile(new File(sCacheDir, TAG), "r");
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(recordFile), "UTF-8"), 8192);
             String line;
-            while (!TextUtils.isEmpty(line = raf.readLine())) {
+            while (!TextUtils.isEmpty(line = reader.readLine())) {
                 try {
                     String[] record = line.split(",");
-                    File file = new File(record[1]);
-                    if (file.exists()) {
-                        //添加记录到LruCache
-                        mLruCache.put(record[0], file);
-                    }
+                    records.put(record[0], new File(record[1]));
                 } catch (Exception ignored) {
                 }
             }
-            raf.close();
         } catch (Exception ignored) {
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                }
+            }
         }
     }
 
     /**
-     * 重置缓存记录
+     * 以当前记录重写日志，先写入临时文件再替换
      */
-    private void resetCacheRecord() {
-        try {
-            Map<String, File> snapshot = mLruCache.snapshot();
-            if (snapshot != null) {
-                RandomAccessFile raf = new RandomAccessFile(new File(sCacheDir, TAG), "rw");
-                raf.setLength(0);
-                for (String key : snapshot.keySet()) {
-                    File file = snapshot.get(key);
-                    if (file != null && file.exists()) {
-                        raf.writeBytes(key + "," + file.getAbsolutePath() + "\n");
+    private void rebuildJournal() {
+        synchronized (mJournalLock) {
+            closeJournalWriter();
+            File journalFile = new File(sCacheDir, JOURNAL_FILE);
+            File tmpFile = new File(sCacheDir, JOURNAL_FILE_TMP);
+            Writer writer = null;
+            try {
+                if (sCacheDir == null) {
+                    return;
+                }
+                File cacheDir = new File(sCacheDir);
+                if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+                    return;
+                }
+                writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(tmpFile), "UTF-8"), 8192);
+                writer.write(MAGIC);
+                writer.write('\n');
+                writer.write(VERSION);
+                writer.write('\n');
+                List<Map.Entry<String, Record>> records;
+                synchronized (mRecords) {
+                    records = new ArrayList<>(mRecords.entrySet());
+                }
+                for (Map.Entry<String, Record> record : records) {
+                    writer.write(PUT + ' ' + record.getKey() + ' ' + record.getValue().file.getAbsolutePath() + '\n');
+                }
+                writer.close();
+                writer = null;
+                if (tmpFile.renameTo(journalFile)) {
+                    mRedundantOpCount = 0;
+                    mJournalWriter = newJournalWriter(journalFile);
+                }
+            } catch (IOException ignored) {
+            } finally {
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException ignored) {
                     }
                 }
-                raf.close();
             }
-        } catch (Exception ignored) {
+        }
+    }
+
+    private int recordCount() {
+        synchronized (mRecords) {
+            return mRecords.size();
+        }
+    }
+
+    private static Writer newJournalWriter(File journalFile) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalFile, true), "UTF-8"), 8192);
+    }
+
+    private void closeJournalWriter() {
+        if (mJournalWriter != null) {
+            try {
+                mJournalWriter.close();
+            } catch (IOException ignored) {
+            }
+            mJournalWriter = null;
+        }
+    }
+
+    private void journalPut(String key, File file) {
+        appendJournal(PUT + ' ' + key + ' ' + file.getAbsolutePath() + '\n', true);
+    }
+
+    private void journalRead(String key) {
+        //访问记录只写入缓冲区，随下一次 PUT/REMOVE 一起落盘
+        appendJournal(READ + ' ' + key + '\n', false);
+    }
+
+    private void journalRemove(String key) {
+        appendJournal(REMOVE + ' ' + key + '\n', true);
+    }
+
+    private void appendJournal(String record, boolean flush) {
+        synchronized (mJournalLock) {
+            if (mJournalWriter == null) {
+                return;
+            }
+            try {
+                mJournalWriter.write(record);
+                if (flush) {
+                    mJournalWriter.flush();
+                }
+            } catch (IOException ignored) {
+            }
+            mRedundantOpCount++;
+            if (mRedundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD
+                    && mRedundantOpCount >= recordCount()) {
+                rebuildJournal();
+            }
         }
     }
 
@@ -171,18 +629,156 @@ public class DiskLruCache {
     }
 
     /**
-     * 获取磁盘可用空间大小
+     * 获取缓存目录
      */
-    private static long loadDiskUsableSpace() {
-        long maxSize;
+    private static String loadCacheDir() {
         try {
-            sCacheDir = getAppContext().getExternalCacheDir().getAbsolutePath() + "/" + TAG;
-            StatFs stats = new StatFs(sCacheDir);
-            maxSize = stats.getBlockSizeLong() * stats.getAvailableBlocksLong();
+            return getAppContext().getExternalCacheDir().getAbsolutePath() + "/" + TAG;
         } catch (Exception ignored) {
-            maxSize = 200 * 1048576;
+            return null;
+        }
+    }
+
+    /**
+     * 缓存编辑器，写入临时文件，提交时重命名为缓存文件；正在读取旧文件的 {@link Snapshot} 不受影响
+     */
+    public final class Editor {
+
+        private final String mKey;
+        private final File mFile;
+        private final File mTmpFile;
+        private OutputStream mOut;
+        private boolean mDone;
+
+        private Editor(String key, File file) {
+            mKey = key;
+            mFile = file;
+            mTmpFile = new File(file.getPath() + TMP_SUFFIX);
+        }
+
+        /**
+         * 写入数据的输出流，多次调用返回同一个流
+         */
+        public synchronized OutputStream newOutputStream() throws IOException {
+            if (mDone) {
+                throw new IllegalStateException("Editor has been committed or aborted");
+            }
+            if (mOut == null) {
+                mOut = new FileOutputStream(mTmpFile);
+            }
+            return mOut;
+        }
+
+        /**
+         * 写入数据的 {@link Sink}，例如 {@code response.body().source().readAll(editor.newSink())}
+         */
+        public Sink newSink() throws IOException {
+            return Okio.sink(newOutputStream());
+        }
+
+        /**
+         * 提交写入的数据
+         *
+         * @return 缓存文件
+         */
+        public synchronized File commit() throws IOException {
+            if (mDone) {
+                throw new IllegalStateException("Editor has been committed or aborted");
+            }
+            mDone = true;
+            try {
+                if (mOut == null) {
+                    throw new IOException("Nothing written for " + mKey);
+                }
+                mOut.close();
+                if (!mTmpFile.renameTo(mFile)) {
+                    throw new IOException("Unable to rename " + mTmpFile + " to " + mFile);
+                }
+                record(mKey, mFile, true);
+                return mFile;
+            } finally {
+                mTmpFile.delete();
+                endEdit(mKey);
+            }
+        }
+
+        /**
+         * 放弃写入的数据，已提交时无影响
+         */
+        public synchronized void abort() {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            if (mOut != null) {
+                try {
+                    mOut.close();
+                } catch (IOException ignored) {
+                }
+            }
+            mTmpFile.delete();
+            endEdit(mKey);
+        }
+    }
+
+    /**
+     * 缓存快照
+     */
+    public static final class Snapshot implements Closeable {
+
+        private final File mFile;
+        private final long mLength;
+        private final InputStream mIn;
+
+        private Snapshot(File file, InputStream in) {
+            mFile = file;
+            mLength = file.length();
+            mIn = in;
+        }
+
+        public File getFile() {
+            return mFile;
+        }
+
+        /**
+         * 打开快照时的文件大小（字节）
+         */
+        public long getLength() {
+            return mLength;
+        }
+
+        public InputStream getInputStream() {
+            return mIn;
+        }
+
+        public Source getSource() {
+            return Okio.source(mIn);
+        }
+
+        @Override
+        public void close() {
+            try {
+                mIn.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 缓存记录
+     */
+    private static class Record {
+
+        private final File file;
+        /**
+         * 记录时的文件大小（字节）
+         */
+        private final long length;
+
+        private Record(File file, long length) {
+            this.file = file;
+            this.length = length;
         }
-        return maxSize;
     }
 
     @SuppressLint("PrivateApi")
@@ -0,0 +1,194 @@
+package dev.yong.wheel.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 缓存数据压缩
+ * <p>
+ * 使用最快级别的 Deflate 压缩，编码方式记录在 {@link EntryHeader#flags} 中；
+ * Deflater/Inflater 持有本地内存，创建成本较高，与读写缓冲区一起复用。
+ *
+ * @author coderyong
+ */
+final class EntryCodec {
+
+    static final byte NONE = 0;
+    static final byte DEFLATE = 1;
+
+    private static final int POOL_SIZE = 4;
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ArrayDeque<Deflater> DEFLATERS = new ArrayDeque<>();
+    private static final ArrayDeque<Inflater> INFLATERS = new ArrayDeque<>();
+    private static final ArrayDeque<byte[]> BUFFERS = new ArrayDeque<>();
+
+    private EntryCodec() {
+    }
+
+    /**
+     * 压缩数据
+     *
+     * @return 压缩后的数据，压缩后没有变小时返回 null
+     */
+    static byte[] deflate(byte[] data) {
+        Deflater deflater = obtainDeflater();
+        byte[] buffer = obtainBuffer();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, data.length / 2));
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+                if (out.size() >= data.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            recycle(deflater);
+            recycle(buffer);
+        }
+    }
+
+    /**
+     * 以流的方式解压，结果直接写入长度为 rawLength 的数组，读取结束后继续读完输入流以触发其校验
+     *
+     * @param in        压缩数据
+     * @param rawLength 解压后的长度
+     */
+    static byte[] inflate(InputStream in, int rawLength) throws IOException {
+        Inflater inflater = obtainInflater();
+        byte[] buffer = obtainBuffer();
+        try {
+            byte[] data = new byte[rawLength];
+            int offset = 0;
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    int count = in.read(buffer);
+                    if (count == -1) {
+                        throw new EOFException("Unexpected end of compressed cache entry");
+                    }
+                    inflater.setInput(buffer, 0, count);
+                } else if (inflater.needsDictionary()) {
+                    throw new IOException("Unsupported compressed cache entry");
+                }
+                int count = inflater.inflate(data, offset, data.length - offset);
+                offset += count;
+                if (count == 0 && offset == data.length && !inflater.finished() && !inflater.needsInput()) {
+                    throw new IOException("Compressed cache entry larger than expected");
+                }
+            }
+            if (offset != rawLength) {
+                throw new IOException("Compressed cache entry length mismatch");
+            }
+            while (in.read(buffer) != -1) {
+                //读完剩余数据
+            }
+            return data;
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            recycle(inflater);
+            recycle(buffer);
+        }
+    }
+
+    /**
+     * 解压输入流，关闭时回收 Inflater
+     */
+    static InputStream inflateStream(InputStream in) {
+        return new PooledInflaterInputStream(in);
+    }
+
+    private static Deflater obtainDeflater() {
+        synchronized (DEFLATERS) {
+            Deflater deflater = DEFLATERS.poll();
+            if (deflater != null) {
+                return deflater;
+            }
+        }
+        return new Deflater(Deflater.BEST_SPEED);
+    }
+
+    private static void recycle(Deflater deflater) {
+        deflater.reset();
+        synchronized (DEFLATERS) {
+            if (DEFLATERS.size() < POOL_SIZE) {
+                DEFLATERS.push(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    private static Inflater obtainInflater() {
+        synchronized (INFLATERS) {
+            Inflater inflater = INFLATERS.poll();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater();
+    }
+
+    private static void recycle(Inflater inflater) {
+        inflater.reset();
+        synchronized (INFLATERS) {
+            if (INFLATERS.size() < POOL_SIZE) {
+                INFLATERS.push(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    private static byte[] obtainBuffer() {
+        synchronized (BUFFERS) {
+            byte[] buffer = BUFFERS.poll();
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    private static void recycle(byte[] buffer) {
+        synchronized (BUFFERS) {
+            if (BUFFERS.size() < POOL_SIZE) {
+                BUFFERS.push(buffer);
+            }
+        }
+    }
+
+    private static final class PooledInflaterInputStream extends InflaterInputStream {
+
+        private boolean mClosed;
+
+        private PooledInflaterInputStream(InputStream in) {
+            super(in, obtainInflater(), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (mClosed) {
+                return;
+            }
+            mClosed = true;
+            try {
+                super.close();
+            } finally {
+                //使用外部传入的 Inflater 时 close() 不会释放，交由对象池管理
+                recycle(inf);
+            }
+        }
+    }
+}
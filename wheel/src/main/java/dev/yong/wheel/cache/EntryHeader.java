@@ -0,0 +1,155 @@
+package dev.yong.wheel.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * 缓存文件头
+ * <p>
+ * 格式：magic(4) | version(1) | flags(1) | length(4) | crc32(4) | serializer(1) | rawLength(4) | keyLength(4) | key，
+ * length 为文件中数据的长度，crc32 为文件中数据的校验值，serializer 为数据使用的 {@link CacheSerializer#id()}（version 2 起），
+ * flags 低 4 位为压缩方式 {@link EntryCodec}，rawLength 为解压后的长度（version 3 起），
+ * key 为 UTF-8 编码的原始缓存 key，读取时校验，防止哈希冲突时读到其他 key 的数据（version 4 起）。
+ * 文件长度与 length 不一致即视为损坏，无需读取数据。
+ *
+ * @author coderyong
+ */
+final class EntryHeader {
+
+    /**
+     * "WHC1"
+     */
+    static final int MAGIC = 0x57484331;
+    static final byte VERSION = 4;
+    /**
+     * 文件头最小长度（version 1）
+     */
+    static final int MIN_SIZE = 14;
+    private static final int CODEC_MASK = 0x0F;
+    /**
+     * key 长度上限，超出视为文件头损坏
+     */
+    private static final int MAX_KEY_LENGTH = 1024 * 1024;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    byte version = VERSION;
+    byte flags;
+    int length;
+    int crc;
+    byte serializer = CacheSerializers.ID_RAW;
+    int rawLength;
+    /**
+     * 原始 key 的 UTF-8 编码，version 4 之前为 null
+     */
+    byte[] key;
+
+    EntryHeader() {
+    }
+
+    /**
+     * @param data      写入文件的数据（压缩后）
+     * @param codec     压缩方式
+     * @param rawLength 解压后的长度
+     * @param key       原始缓存 key
+     */
+    EntryHeader(byte[] data, byte serializer, byte codec, int rawLength, String key) {
+        this.flags = (byte) (codec & CODEC_MASK);
+        this.length = data.length;
+        this.crc = crc32(data, 0, data.length);
+        this.serializer = serializer;
+        this.rawLength = rawLength;
+        this.key = key.getBytes(UTF_8);
+    }
+
+    /**
+     * 文件头长度
+     */
+    int size() {
+        if (version >= 4) {
+            return MIN_SIZE + 9 + key.length;
+        }
+        if (version >= 3) {
+            return MIN_SIZE + 5;
+        }
+        return version >= 2 ? MIN_SIZE + 1 : MIN_SIZE;
+    }
+
+    /**
+     * 压缩方式
+     */
+    byte codec() {
+        return (byte) (flags & CODEC_MASK);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(version);
+        out.writeByte(flags);
+        out.writeInt(length);
+        out.writeInt(crc);
+        out.writeByte(serializer);
+        out.writeInt(rawLength);
+        out.writeInt(key.length);
+        out.write(key);
+    }
+
+    /**
+     * 读取文件头
+     *
+     * @return 文件头，magic 不匹配（旧版本无文件头的缓存文件）时返回 null
+     */
+    static EntryHeader read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            return null;
+        }
+        EntryHeader header = new EntryHeader();
+        header.version = in.readByte();
+        header.flags = in.readByte();
+        header.length = in.readInt();
+        header.crc = in.readInt();
+        if (header.version >= 2) {
+            header.serializer = in.readByte();
+        } else {
+            //version 1 未记录序列化方式，按 Java 序列化处理
+            header.serializer = CacheSerializers.ID_JAVA;
+        }
+        header.rawLength = header.version >= 3 ? in.readInt() : header.length;
+        if (header.version >= 4) {
+            int keyLength = in.readInt();
+            if (keyLength < 0 || keyLength > MAX_KEY_LENGTH) {
+                throw new IOException("Corrupt cache entry header");
+            }
+            header.key = new byte[keyLength];
+            in.readFully(header.key);
+        }
+        return header;
+    }
+
+    /**
+     * 校验原始 key，version 4 之前未记录 key，视为一致
+     */
+    boolean matchesKey(String key) {
+        return this.key == null || Arrays.equals(this.key, key.getBytes(UTF_8));
+    }
+
+    /**
+     * 根据文件长度判断数据是否完整
+     */
+    boolean matches(long fileLength) {
+        return length >= 0 && fileLength == size() + (long) length;
+    }
+
+    boolean verify(byte[] data, int offset, int count) {
+        return crc == crc32(data, offset, count);
+    }
+
+    static int crc32(byte[] data, int offset, int count) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, offset, count);
+        return (int) crc32.getValue();
+    }
+}
@@ -0,0 +1,177 @@
+package dev.yong.wheel.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 缓存过期时间索引
+ * <p>
+ * 以开放寻址（线性探测）的方式保存 key → 过期时间（毫秒时间戳），过期时间以 long 原始类型存储，
+ * 读取时无需解析字符串，一次比较即可判断是否过期。
+ *
+ * @author coderyong
+ */
+final class ExpiryIndex {
+
+    /**
+     * 未设置过期时间，任何时刻与之比较都不会过期
+     */
+    static final long NONE = Long.MAX_VALUE;
+
+    private static final int MIN_CAPACITY = 16;
+    /**
+     * 已删除位置的标记，按引用比较
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String DELETED = new String("");
+
+    private String[] mKeys;
+    private long[] mDeadlines;
+    /**
+     * 有效数据个数
+     */
+    private int mSize;
+    /**
+     * 已占用位置个数（包括删除标记）
+     */
+    private int mUsed;
+
+    ExpiryIndex() {
+        mKeys = new String[MIN_CAPACITY];
+        mDeadlines = new long[MIN_CAPACITY];
+    }
+
+    /**
+     * 获取过期时间
+     *
+     * @return 过期时间，未设置时返回 {@link #NONE}
+     */
+    synchronized long get(String key) {
+        int index = indexOf(key);
+        return index < 0 ? NONE : mDeadlines[index];
+    }
+
+    /**
+     * 判断是否已过期
+     */
+    boolean isExpired(String key, long now) {
+        return now >= get(key);
+    }
+
+    synchronized void put(String key, long deadline) {
+        int mask = mKeys.length - 1;
+        int deleted = -1;
+        int i = hash(key) & mask;
+        for (String k; (k = mKeys[i]) != null; i = (i + 1) & mask) {
+            if (k == DELETED) {
+                if (deleted < 0) {
+                    deleted = i;
+                }
+            } else if (k.equals(key)) {
+                mDeadlines[i] = deadline;
+                return;
+            }
+        }
+        if (deleted >= 0) {
+            i = deleted;
+        } else {
+            mUsed++;
+        }
+        mKeys[i] = key;
+        mDeadlines[i] = deadline;
+        mSize++;
+        //负载超过 3/4 时重建，同时清除删除标记
+        if (mUsed * 4 > mKeys.length * 3) {
+            rehash();
+        }
+    }
+
+    synchronized boolean remove(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        mKeys[index] = DELETED;
+        mSize--;
+        return true;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(mKeys, null);
+        mSize = 0;
+        mUsed = 0;
+    }
+
+    synchronized int size() {
+        return mSize;
+    }
+
+    /**
+     * 移除所有已过期的数据
+     *
+     * @param now     当前时间
+     * @param expired 用于接收已过期的 key
+     * @return 剩余数据中最早的过期时间，没有时返回 {@link #NONE}
+     */
+    synchronized long expire(long now, List<String> expired) {
+        long next = NONE;
+        for (int i = 0; i < mKeys.length; i++) {
+            String key = mKeys[i];
+            if (key == null || key == DELETED) {
+                continue;
+            }
+            long deadline = mDeadlines[i];
+            if (now >= deadline) {
+                mKeys[i] = DELETED;
+                mSize--;
+                expired.add(key);
+            } else if (deadline < next) {
+                next = deadline;
+            }
+        }
+        return next;
+    }
+
+    private int indexOf(String key) {
+        int mask = mKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            String k = mKeys[i];
+            if (k == null) {
+                return -1;
+            }
+            if (k != DELETED && k.equals(key)) {
+                return i;
+            }
+        }
+    }
+
+    private void rehash() {
+        int capacity = MIN_CAPACITY;
+        while (capacity < mSize * 3) {
+            capacity <<= 1;
+        }
+        String[] keys = mKeys;
+        long[] deadlines = mDeadlines;
+        mKeys = new String[capacity];
+        mDeadlines = new long[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < keys.length; j++) {
+            String key = keys[j];
+            if (key == null || key == DELETED) {
+                continue;
+            }
+            int i = hash(key) & mask;
+            while (mKeys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            mKeys[i] = key;
+            mDeadlines[i] = deadlines[j];
+        }
+        mUsed = mSize;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,258 +1,1366 @@
 package dev.yong.wheel.cache;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Executors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
 
 /**
+ * 文件缓存
+ * <p>
+ * 缓存索引记录在 {@link #JOURNAL_FILE} 日志中，启动时顺序读取一次即可恢复，
+ * 不再扫描缓存目录；冗余记录过多时压缩重写日志。
+ * <p>
+ * 索引按访问顺序排列（最久未访问的在最前），淘汰、访问更新与容量统计均为 O(1)。
+ * <p>
+ * 并发模式下读取不加锁，访问记录先进入缓冲区再批量应用到访问顺序；写入按 key 分段加锁，
+ * 不同 key 的写入互不阻塞。
+ * <p>
+ * 缓存文件先写入临时文件，按 {@link CacheConfig.Durability} 策略同步到磁盘后再原子重命名；
+ * 文件头记录数据长度与 CRC32，读取时截断或损坏的文件直接丢弃，不再进入反序列化。
+ * <p>
+ * 设置压缩阈值后较大的数据以 Deflate 压缩存储，读取时以流的方式解压。
+ * <p>
+ * 设置分段阈值后较小的数据追加到 {@link SegmentStore} 的分段文件中，不再每个 key 一个文件，
+ * 日志中以 {@link #SEGMENT} 标记，启动时按扫描到的记录位置恢复；有效数据比例过低的分段在后台合并。
+ * <p>
+ * 缓存文件以 key 的 128 位哈希（{@link KeyHash}）命名，文件头记录原始 key 并在读取时校验；
+ * 旧版本以 {@link String#hashCode()} 命名的文件依然可以读取，读取时按新的文件名重新写入，写入同一 key 时直接删除。
+ *
  * @author coderyong
  */
 class FileCache {
 
+    static final String JOURNAL_FILE = "file_cache.journal";
+    static final String JOURNAL_FILE_TMP = "file_cache.journal.tmp";
+    static final String MAGIC = "dev.yong.wheel.cache.FileCache";
+    static final String VERSION = "1";
+
+    private static final String PUT = "PUT";
+    private static final String READ = "READ";
+    private static final String REMOVE = "REMOVE";
+    /**
+     * PUT 记录的附加标记，表示数据位于分段文件中
+     */
+    private static final String SEGMENT = "S";
+    private static final String SEGMENT_DIR = "segments";
+    /**
+     * 冗余记录数达到该值（且不少于有效记录数）时压缩日志
+     */
+    private static final int REDUNDANT_OP_COMPACT_THRESHOLD = 2000;
+    /**
+     * 并发模式下访问记录达到该数量时批量应用
+     */
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 64;
+    /**
+     * 访问记录缓冲区上限，超出后丢弃新的访问记录
+     */
+    private static final int READ_BUFFER_MAX_SIZE = 1024;
+    private static final int WRITE_LOCK_STRIPES = 16;
+    /**
+     * 数据不小于该值时 {@link #getBuffer(String)} 使用内存映射读取
+     */
+    private static final int MAP_THRESHOLD = 32 * 1024;
+    /**
+     * 日志中标记为分段、尚未恢复记录位置的索引
+     */
+    private static final SegmentStore.Slot PENDING_SLOT = new SegmentStore.Slot(-1, -1, 0);
+
     private final File mCacheDir;
+    private final File mJournalFile;
     private final long mMaxSize;
     private final int mMaxCount;
-    private final AtomicLong mCacheSize;
-    private final AtomicInteger mCacheCount;
-    private final Map<String, File> mCacheFiles = Collections.synchronizedMap(new HashMap<>());
-    private final Map<File, Long> mLastModified = Collections.synchronizedMap(new HashMap<>());
+    private final boolean mConcurrent;
+    /**
+     * 缓存索引，按访问顺序排列，所有访问需持有 {@link #mEvictionLock}
+     */
+    private final LinkedHashMap<String, Entry> mCacheFiles = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * 与 mCacheFiles 内容一致的查找索引，读取时无需加锁
+     */
+    private final ConcurrentHashMap<String, Entry> mIndex = new ConcurrentHashMap<>();
+    private final ReentrantLock mEvictionLock = new ReentrantLock();
+    private final Object[] mWriteLocks = new Object[WRITE_LOCK_STRIPES];
+    private final Queue<Entry> mReadBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mReadBufferSize = new AtomicInteger();
+    private long mCacheSize;
+    private volatile CacheConfig.Durability mDurability = CacheConfig.Durability.NONE;
+    private final Object mJournalLock = new Object();
+
+    private FileOutputStream mJournalStream;
+    private Writer mJournalWriter;
+    private int mRedundantOpCount;
+    /**
+     * 当前线程是否处于批量写入中，批量写入期间日志不单独落盘
+     */
+    private final ThreadLocal<Boolean> mBatching = new ThreadLocal<>();
+    private volatile StatsCounter mStats = new StatsCounter();
+    /**
+     * 数据不小于该值时压缩存储，小于0时不压缩
+     */
+    private volatile int mCompressThreshold = -1;
+    /**
+     * 数据（含文件头）小于该值时写入分段文件，小于等于0时不使用分段
+     */
+    private volatile int mSegmentThreshold = -1;
+    private final SegmentStore mSegments;
+    private final AtomicBoolean mCompacting = new AtomicBoolean();
+    /**
+     * 是否存在旧版本以 {@link String#hashCode()} 命名的缓存，不存在时无需额外查找
+     */
+    private volatile boolean mLegacyEntries;
+
+    FileCache(File cacheDir, long maxSize, int maxCount) {
+        this(cacheDir, maxSize, maxCount, false);
+    }
+
+    /**
+     * @param concurrent 是否使用并发模式，并发模式下读取不加锁，访问顺序批量更新（近似LRU）
+     */
+    FileCache(File cacheDir, long maxSize, int maxCount, boolean concurrent) {
+        this.mCacheDir = cacheDir;
+        this.mJournalFile = new File(cacheDir, JOURNAL_FILE);
+        this.mMaxSize = maxSize;
+        this.mMaxCount = maxCount;
+        this.mConcurrent = concurrent;
+        this.mSegments = new SegmentStore(new File(cacheDir, SEGMENT_DIR));
+        for (int i = 0; i < WRITE_LOCK_STRIPES; i++) {
+            mWriteLocks[i] = new Object();
+        }
+        readJournal();
+        detectLegacyEntries();
+        scheduleCompaction();
+    }
+
+    /**
+     * 设置写入持久化策略，默认 {@link CacheConfig.Durability#NONE}
+     */
+    public void setDurability(CacheConfig.Durability durability) {
+        mDurability = durability == null ? CacheConfig.Durability.NONE : durability;
+    }
+
+    /**
+     * 设置压缩阈值，数据不小于该值时使用 Deflate 压缩存储，压缩后没有变小则仍以原始数据存储
+     *
+     * @param threshold 压缩阈值（字节），小于0时不压缩（默认）
+     */
+    public void setCompressThreshold(int threshold) {
+        mCompressThreshold = threshold;
+    }
+
+    /**
+     * 设置分段阈值，数据（含文件头）小于该值时追加到分段文件，适合大量较小的缓存数据；
+     * 已写入的数据不受影响，修改后依然可以正常读取
+     *
+     * @param threshold 分段阈值（字节），小于等于0时不使用分段（默认）
+     */
+    public void setSegmentThreshold(int threshold) {
+        mSegmentThreshold = threshold;
+    }
+
+    /**
+     * 设置统计记录，与 {@link Cache} 共用
+     */
+    void setStatsCounter(StatsCounter stats) {
+        mStats = stats;
+    }
+
+    /**
+     * 添加缓存文件
+     *
+     * @param key     缓存文件key
+     * @param value   缓存数据
+     * @param timeout 设置超时删除
+     * @param unit    时间单位{@link TimeUnit}
+     */
+    public void put(String key, Serializable value, long timeout, TimeUnit unit) {
+        put(key, value, CacheSerializers.JAVA, timeout, unit);
+    }
+
+    /**
+     * 使用指定序列化器添加缓存文件
+     *
+     * @param key        缓存文件key
+     * @param value      缓存数据
+     * @param serializer 序列化器，其 id 记录在文件头中
+     * @param timeout    设置超时删除
+     * @param unit       时间单位{@link TimeUnit}
+     */
+    public <T> void put(String key, T value, CacheSerializer<T> serializer, long timeout, TimeUnit unit) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long startTime = mStats.startTime();
+            serializer.serialize(value, out);
+            mStats.recordSerialization(startTime);
+            put(key, out.toByteArray(), serializer.id(), timeout, unit);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 添加缓存文件
+     *
+     * @param key     缓存文件key
+     * @param value   缓存数据
+     * @param timeout 设置超时删除
+     * @param unit    时间单位{@link TimeUnit}
+     */
+    public void put(String key, byte[] value, long timeout, TimeUnit unit) {
+        put(key, value, CacheSerializers.ID_RAW, timeout, unit);
+    }
+
+    /**
+     * 添加缓存文件，并指定是否压缩，不受压缩阈值影响
+     *
+     * @param key      缓存文件key
+     * @param value    缓存数据
+     * @param compress 是否压缩
+     * @param timeout  设置超时删除
+     * @param unit     时间单位{@link TimeUnit}
+     */
+    public void put(String key, byte[] value, boolean compress, long timeout, TimeUnit unit) {
+        put(key, value, CacheSerializers.ID_RAW, compress, timeout, unit);
+    }
+
+    private void put(String key, byte[] value, byte serializer, long timeout, TimeUnit unit) {
+        int threshold = mCompressThreshold;
+        put(key, value, serializer, threshold >= 0 && value.length >= threshold, timeout, unit);
+    }
+
+    private void put(String key, byte[] value, byte serializer, boolean compress, long timeout, TimeUnit unit) {
+        byte codec = EntryCodec.NONE;
+        byte[] data = value;
+        if (compress) {
+            byte[] compressed = EntryCodec.deflate(value);
+            if (compressed != null) {
+                codec = EntryCodec.DEFLATE;
+                data = compressed;
+            }
+        }
+        File file = newFile(key, timeout, unit);
+        EntryHeader header = new EntryHeader(data, serializer, codec, value.length, key);
+        int segmentThreshold = mSegmentThreshold;
+        boolean segment = segmentThreshold > 0 && header.size() + data.length < segmentThreshold;
+        String fileKey = getFileKey(file);
+        Entry entry;
+        boolean released = false;
+        List<Entry> reads = new ArrayList<>();
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (getWriteLock(fileKey)) {
+            SegmentStore.Slot slot = null;
+            if (segment) {
+                slot = appendSegment(file.getName(), header, data);
+                if (slot == null) {
+                    return;
+                }
+                entry = new Entry(file, slot.size, System.currentTimeMillis(), slot);
+            } else if (writeDataToFile(file, header, data)) {
+                entry = new Entry(file, file.length(), System.currentTimeMillis());
+            } else {
+                return;
+            }
+            mStats.recordBytesWritten(data.length);
+            mEvictionLock.lock();
+            try {
+                applyBufferedReads(reads);
+                Entry previous = mCacheFiles.put(fileKey, entry);
+                mIndex.put(fileKey, entry);
+                if (previous != null) {
+                    mCacheSize -= previous.length;
+                    if (previous.slot != null) {
+                        mSegments.release(previous.slot);
+                        released = true;
+                    } else if (segment || !previous.file.equals(file)) {
+                        previous.file.delete();
+                    }
+                }
+                mCacheSize += entry.length;
+                //超出数量或大小限制时依次淘汰最久未访问的文件
+                while ((mCacheFiles.size() > mMaxCount || mCacheSize > mMaxSize) && mCacheFiles.size() > 1) {
+                    if (mCacheFiles.size() > mMaxCount) {
+                        mStats.recordCountEviction();
+                    } else {
+                        mStats.recordSizeEviction();
+                    }
+                    mCacheSize -= removeOldest(evicted);
+                }
+            } finally {
+                mEvictionLock.unlock();
+            }
+            //持有写锁写入日志，相同 key 的日志顺序与索引更新顺序一致
+            journalReads(reads);
+            journalPut(entry);
+        }
+        //释放当前 key 的写锁后再获取被淘汰 key 的写锁，避免同时持有两个写锁
+        for (Entry eldest : evicted) {
+            deleteEvicted(eldest);
+            released |= eldest.slot != null;
+        }
+        if (released) {
+            scheduleCompaction();
+        }
+        if (mLegacyEntries) {
+            Entry legacy = mIndex.get(key.hashCode() + "");
+            if (legacy != null) {
+                discard(legacy);
+            }
+        }
+    }
+
+    private SegmentStore.Slot appendSegment(String name, EntryHeader header, byte[] data) {
+        try {
+            return mSegments.append(name, header, data, mDurability != CacheConfig.Durability.NONE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 获取序列化数据
+     *
+     * @param key 缓存文件key
+     * @return Serializable 数据
+     */
+    public Serializable getSerializable(String key) {
+        Object value = get(key, null);
+        return value instanceof Serializable ? (Serializable) value : null;
+    }
+
+    /**
+     * 获取缓存对象
+     * <p>
+     * 文件头记录的序列化器与传入的不一致时（例如旧数据），使用 {@link CacheSerializers} 中注册的序列化器
+     *
+     * @param key        缓存文件key
+     * @param serializer 序列化器，为空时仅使用已注册的序列化器
+     * @return 缓存对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, CacheSerializer<T> serializer) {
+        Payload payload = readPayload(key);
+        if (payload == null) {
+            return null;
+        }
+        CacheSerializer<?> target = serializer;
+        if (target == null || target.id() != payload.serializer) {
+            target = CacheSerializers.get(payload.serializer);
+        }
+        if (target == null) {
+            return null;
+        }
+        try {
+            long startTime = mStats.startTime();
+            T value = (T) target.deserialize(new ByteArrayInputStream(payload.data));
+            mStats.recordDeserialization(startTime);
+            return value;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 获取 byte 数据
+     *
+     * @param key 缓存文件key
+     * @return byte 数据
+     */
+    public byte[] getByte(String key) {
+        Payload payload = readPayload(key);
+        return payload == null ? null : payload.data;
+    }
+
+    private Payload readPayload(String key) {
+        Entry entry = get(key);
+        if (entry == null) {
+            return null;
+        }
+        Payload payload = entry.slot != null ? readSegment(entry, key) : readFile(entry, key);
+        if (payload != null && !KeyHash.isHex(getFileKey(entry.file))) {
+            migrate(key, entry, payload);
+        }
+        return payload;
+    }
+
+    /**
+     * 将旧版本的缓存按新的文件名重新写入，剩余有效期不变
+     */
+    private void migrate(String key, Entry legacy, Payload payload) {
+        long timeout = getFileTimeout(legacy.file);
+        if (timeout > 0) {
+            timeout -= System.currentTimeMillis();
+            if (timeout <= 0) {
+                return;
+            }
+        }
+        put(key, payload.data, payload.serializer, timeout > 0 ? timeout : -1, TimeUnit.MILLISECONDS);
+    }
+
+    private Payload readFile(Entry entry, String key) {
+        RandomAccessFile accessFile = null;
+        try {
+            File file = entry.file;
+            if (!file.exists()) {
+                return null;
+            }
+            accessFile = new RandomAccessFile(file, "r");
+            long fileLength = accessFile.length();
+            EntryHeader header = fileLength >= EntryHeader.MIN_SIZE ? EntryHeader.read(accessFile) : null;
+            if (header == null) {
+                //旧版本没有文件头的缓存文件，直接读取全部内容
+                byte[] byteArray = new byte[(int) fileLength];
+                accessFile.seek(0);
+                accessFile.readFully(byteArray);
+                mStats.recordBytesRead(byteArray.length);
+                return new Payload(CacheSerializers.ID_JAVA, byteArray);
+            }
+            if (!header.matches(fileLength)) {
+                discard(entry);
+                return null;
+            }
+            if (!header.matchesKey(key)) {
+                return null;
+            }
+            if (header.codec() != EntryCodec.NONE) {
+                return readCompressed(accessFile, header, entry);
+            }
+            byte[] byteArray = new byte[header.length];
+            accessFile.readFully(byteArray);
+            if (!header.verify(byteArray, 0, byteArray.length)) {
+                discard(entry);
+                return null;
+            }
+            mStats.recordBytesRead(byteArray.length);
+            return new Payload(header.serializer, byteArray);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (accessFile != null) {
+                try {
+                    accessFile.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 边读取边校验边解压，不额外保存压缩数据
+     */
+    private Payload readCompressed(RandomAccessFile accessFile, EntryHeader header, Entry entry) throws IOException {
+        if (header.codec() != EntryCodec.DEFLATE) {
+            return null;
+        }
+        //通道与 RandomAccessFile 共用读取位置，当前位于文件头之后
+        InputStream in = new EntryInputStream(Channels.newInputStream(accessFile.getChannel()), header, entry);
+        byte[] byteArray;
+        try {
+            byteArray = EntryCodec.inflate(in, header.rawLength);
+        } catch (IOException e) {
+            discard(entry);
+            throw e;
+        }
+        mStats.recordBytesRead(header.length);
+        return new Payload(header.serializer, byteArray);
+    }
+
+    /**
+     * 读取分段中的数据，记录已经过 CRC32 校验；分段合并后原位置失效，按新位置重试一次
+     */
+    private Payload readSegment(Entry entry, String key) {
+        SegmentStore.Slot slot = entry.slot;
+        try {
+            SegmentStore.Record record;
+            try {
+                record = mSegments.read(slot);
+            } catch (FileNotFoundException e) {
+                if (entry.slot == slot) {
+                    throw e;
+                }
+                record = mSegments.read(entry.slot);
+            }
+            if (record == null) {
+                discard(entry);
+                return null;
+            }
+            EntryHeader header = record.header;
+            if (!header.matchesKey(key)) {
+                return null;
+            }
+            byte[] byteArray = record.data;
+            if (header.codec() == EntryCodec.DEFLATE) {
+                byteArray = EntryCodec.inflate(new ByteArrayInputStream(byteArray), header.rawLength);
+            } else if (header.codec() != EntryCodec.NONE) {
+                return null;
+            }
+            mStats.recordBytesRead(header.length);
+            return new Payload(header.serializer, byteArray);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 获取只读的缓存数据
+     * <p>
+     * 较大的数据直接映射文件（{@link java.nio.MappedByteBuffer}），不在堆上复制；
+     * 较小的数据读入堆内存，映射的开销反而更高。
+     *
+     * @param key 缓存文件key
+     * @return 只读 ByteBuffer，position 为 0，limit 为数据长度
+     */
+    public ByteBuffer getBuffer(String key) {
+        Entry entry = get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.slot != null) {
+            Payload payload = readSegment(entry, key);
+            return payload == null ? null : ByteBuffer.wrap(payload.data).asReadOnlyBuffer();
+        }
+        RandomAccessFile accessFile = null;
+        try {
+            File file = entry.file;
+            if (!file.exists()) {
+                return null;
+            }
+            accessFile = new RandomAccessFile(file, "r");
+            long fileLength = accessFile.length();
+            EntryHeader header = fileLength >= EntryHeader.MIN_SIZE ? EntryHeader.read(accessFile) : null;
+            long offset;
+            long length;
+            if (header == null) {
+                offset = 0;
+                length = fileLength;
+            } else if (header.matches(fileLength)) {
+                if (!header.matchesKey(key)) {
+                    return null;
+                }
+                if (header.codec() != EntryCodec.NONE) {
+                    //压缩数据无法映射，解压到堆内存
+                    Payload payload = readCompressed(accessFile, header, entry);
+                    return payload == null ? null : ByteBuffer.wrap(payload.data).asReadOnlyBuffer();
+                }
+                offset = header.size();
+                length = header.length;
+            } else {
+                discard(entry);
+                return null;
+            }
+            ByteBuffer buffer;
+            if (length >= MAP_THRESHOLD) {
+                //映射在通道关闭后依然有效
+                buffer = accessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length);
+            } else {
+                byte[] byteArray = new byte[(int) length];
+                accessFile.seek(offset);
+                accessFile.readFully(byteArray);
+                buffer = ByteBuffer.wrap(byteArray);
+            }
+            if (header != null && !verify(header, buffer)) {
+                discard(entry);
+                return null;
+            }
+            mStats.recordBytesRead(length);
+            return buffer.asReadOnlyBuffer();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            if (accessFile != null) {
+                try {
+                    accessFile.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 以流的方式读取缓存数据，数据不会一次性读入内存
+     * <p>
+     * 读取到末尾时校验 CRC32，校验失败抛出 {@link IOException} 并丢弃该缓存
+     *
+     * @param key 缓存文件key
+     * @return 数据流，需由调用方关闭
+     */
+    public InputStream openInputStream(String key) {
+        Entry entry = get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.slot != null) {
+            //分段中的数据较小，读取时已完成校验
+            Payload payload = readSegment(entry, key);
+            return payload == null ? null : new ByteArrayInputStream(payload.data);
+        }
+        FileInputStream in = null;
+        try {
+            File file = entry.file;
+            if (!file.exists()) {
+                return null;
+            }
+            long fileLength = file.length();
+            in = new FileInputStream(file);
+            if (fileLength < EntryHeader.MIN_SIZE) {
+                return in;
+            }
+            EntryHeader header = EntryHeader.read(new DataInputStream(in));
+            if (header == null) {
+                //旧版本没有文件头，重新打开从头读取
+                in.close();
+                return new FileInputStream(file);
+            }
+            if (!header.matches(fileLength)) {
+                in.close();
+                discard(entry);
+                return null;
+            }
+            if (!header.matchesKey(key)) {
+                in.close();
+                return null;
+            }
+            InputStream stream = new EntryInputStream(in, header, entry);
+            if (header.codec() == EntryCodec.DEFLATE) {
+                return EntryCodec.inflateStream(stream);
+            }
+            if (header.codec() != EntryCodec.NONE) {
+                in.close();
+                return null;
+            }
+            return stream;
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 判断缓存的String数据是否到期
+     *
+     * @param key 文件保存的Key
+     * @return true：到期了 false：还没有到期
+     */
+    public boolean isObsolete(String key) {
+        return isObsolete(getEntry(key));
+    }
+
+    /**
+     * 获取缓存的到期时间
+     *
+     * @param key 文件保存的Key
+     * @return 到期时间，缓存不存在或不会到期时返回 -1
+     */
+    long getExpireTime(String key) {
+        Entry entry = getEntry(key);
+        return entry == null ? -1 : getFileTimeout(entry.file);
+    }
+
+    /**
+     * 获取缓存在文件中占用的字节数，用于估算内存缓存中的大小
+     *
+     * @param key 文件保存的Key
+     * @return 缓存不存在时返回 -1
+     */
+    int sizeOf(String key) {
+        Entry entry = getEntry(key);
+        return entry == null ? -1 : (int) Math.min(Integer.MAX_VALUE, entry.length);
+    }
+
+    private boolean isObsolete(Entry entry) {
+        if (entry == null || (entry.slot == null && !entry.file.exists())) {
+            return true;
+        }
+        long timeout = getFileTimeout(entry.file);
+        boolean isObsolete = timeout > 0 && timeout < System.currentTimeMillis();
+        if (isObsolete) {
+            String fileKey = getFileKey(entry.file);
+            synchronized (getWriteLock(fileKey)) {
+                //已被重新写入时不删除，文件可能属于新的数据
+                if (mIndex.get(fileKey) != entry) {
+                    return true;
+                }
+                if (entry.slot != null || entry.file.delete()) {
+                    removeEntry(entry);
+                    mStats.recordExpiry(1);
+                } else {
+                    isObsolete = false;
+                }
+            }
+        }
+        return isObsolete;
+    }
+
+    /**
+     * 移除指定缓存数据
+     *
+     * @param key 缓存文件key
+     * @return 是否移除成功
+     */
+    public boolean remove(String key) {
+        synchronized (getWriteLock(KeyHash.hex(key))) {
+            Entry entry = getEntry(key);
+            if (entry == null) {
+                return true;
+            }
+            if (entry.slot != null || !entry.file.exists() || entry.file.delete()) {
+                removeEntry(entry);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 批量写入，期间当前线程的写入/删除日志只写入缓冲区，结束后统一落盘一次
+     *
+     * @param writes 写入操作
+     */
+    public void batch(Runnable writes) {
+        if (mBatching.get() != null) {
+            writes.run();
+            return;
+        }
+        mBatching.set(Boolean.TRUE);
+        try {
+            writes.run();
+        } finally {
+            mBatching.remove();
+            flushJournal();
+        }
+    }
+
+    /**
+     * 关闭日志及分段文件，缓存数据保留；之后的读取不受影响，写入不再记录日志
+     */
+    void close() {
+        synchronized (mJournalLock) {
+            closeJournalWriter();
+        }
+        mSegments.close();
+    }
+
+    /**
+     * 清除缓存文件，缓存目录中的其他文件及子目录（如其他缓存实例的目录）不受影响
+     */
+    public boolean clear() {
+        mEvictionLock.lock();
+        try {
+            mCacheFiles.clear();
+            mIndex.clear();
+            mReadBuffer.clear();
+            mReadBufferSize.set(0);
+            mCacheSize = 0;
+        } finally {
+            mEvictionLock.unlock();
+        }
+        synchronized (mJournalLock) {
+            closeJournalWriter();
+            mSegments.clear();
+            boolean cleared = deleteCacheFiles();
+            rebuildJournal();
+            return cleared;
+        }
+    }
+
+    /**
+     * 读取索引日志，日志不存在或已损坏时扫描缓存目录重建
+     */
+    private void readJournal() {
+        synchronized (mJournalLock) {
+            if (mJournalFile.exists()) {
+                BufferedReader reader = null;
+                try {
+                    reader = new BufferedReader(new InputStreamReader(
+                            new FileInputStream(mJournalFile), "US-ASCII"), 8192);
+                    if (!MAGIC.equals(reader.readLine()) || !VERSION.equals(reader.readLine())) {
+                        throw new IOException("Unexpected journal header");
+                    }
+                    int lineCount = 0;
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        readJournalLine(line);
+                        lineCount++;
+                    }
+                    attachSegments();
+                    mEvictionLock.lock();
+                    try {
+                        mCacheSize = 0;
+                        for (Entry entry : mCacheFiles.values()) {
+                            mCacheSize += entry.length;
+                        }
+                        mIndex.putAll(mCacheFiles);
+                    } finally {
+                        mEvictionLock.unlock();
+                    }
+                    mRedundantOpCount = lineCount - mCacheFiles.size();
+                    mJournalWriter = newJournalWriter(true);
+                    return;
+                } catch (IOException e) {
+                    mEvictionLock.lock();
+                    try {
+                        mCacheFiles.clear();
+                    } finally {
+                        mEvictionLock.unlock();
+                    }
+                } finally {
+                    if (reader != null) {
+                        try {
+                            reader.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+            calculateCacheSizeAndCacheCount();
+            //没有日志时无法确认分段中数据的有效性，全部丢弃
+            attachSegments();
+            rebuildJournal();
+        }
+    }
+
+    private void readJournalLine(String line) {
+        String[] parts = line.split(" ");
+        //按日志顺序重放，访问顺序随之恢复
+        try {
+            if (PUT.equals(parts[0]) && (parts.length == 4 || (parts.length == 5 && SEGMENT.equals(parts[4])))) {
+                File file = new File(mCacheDir, parts[1]);
+                //分段记录的位置在日志读取完成后由 attachSegments 恢复
+                Entry entry = new Entry(file, Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                        parts.length == 5 ? PENDING_SLOT : null);
+                mCacheFiles.put(getFileKey(file), entry);
+            } else if (READ.equals(parts[0]) && parts.length == 3) {
+                //get 会将记录移动到访问顺序末尾
+                Entry entry = mCacheFiles.get(getFileKey(parts[1]));
+                if (entry != null) {
+                    entry.lastAccess = Long.parseLong(parts[2]);
+                }
+            } else if (REMOVE.equals(parts[0]) && parts.length == 2) {
+                Entry entry = mCacheFiles.get(getFileKey(parts[1]));
+                if (entry != null && entry.file.getName().equals(parts[1])) {
+                    mCacheFiles.remove(getFileKey(parts[1]));
+                }
+            }
+        } catch (NumberFormatException ignored) {
+            //进程中断时最后一行可能不完整，忽略即可
+        }
+    }
+
+    /**
+     * 扫描分段文件，恢复日志中分段索引的记录位置并统计各分段的有效数据，找不到记录的索引直接移除
+     */
+    private void attachSegments() {
+        Map<String, SegmentStore.Slot> slots = mSegments.load();
+        mEvictionLock.lock();
+        try {
+            Iterator<Map.Entry<String, Entry>> iterator = mCacheFiles.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> item = iterator.next();
+                Entry entry = item.getValue();
+                if (entry.slot == null) {
+                    continue;
+                }
+                SegmentStore.Slot slot = slots.get(entry.file.getName());
+                if (slot == null) {
+                    iterator.remove();
+                    mIndex.remove(item.getKey());
+                    continue;
+                }
+                mSegments.retain(slot);
+                item.setValue(new Entry(entry.file, slot.size, entry.lastAccess, slot));
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
+        mSegments.finishLoad();
+    }
 
-    FileCache(File cacheDir, long maxSize, int maxCount) {
-        this.mCacheDir = cacheDir;
-        this.mMaxSize = maxSize;
-        this.mMaxCount = maxCount;
-        this.mCacheSize = new AtomicLong();
-        this.mCacheCount = new AtomicInteger();
-        calculateCacheSizeAndCacheCount();
+    /**
+     * 没有索引日志时扫描缓存目录计算 cacheSize和cacheCount（仅首次迁移时执行）
+     */
+    private void calculateCacheSizeAndCacheCount() {
+        File[] cachedFiles = mCacheDir.listFiles();
+        if (cachedFiles == null) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (File cachedFile : cachedFiles) {
+            if (isCacheFileName(cachedFile.getName())) {
+                entries.add(new Entry(cachedFile, cachedFile.length(), cachedFile.lastModified()));
+            }
+        }
+        //按最后修改时间排序，恢复访问顺序
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry o1, Entry o2) {
+                return Long.compare(o1.lastAccess, o2.lastAccess);
+            }
+        });
+        mEvictionLock.lock();
+        try {
+            for (Entry entry : sorted) {
+                mCacheFiles.put(getFileKey(entry.file), entry);
+                mIndex.put(getFileKey(entry.file), entry);
+                mCacheSize += entry.length;
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
     }
 
     /**
-     * 添加缓存文件
-     *
-     * @param key     缓存文件key
-     * @param value   缓存数据
-     * @param timeout 设置超时删除
-     * @param unit    时间单位{@link TimeUnit}
+     * 以当前索引重写日志，先写入临时文件再替换
      */
-    public void put(String key, Serializable value, long timeout, TimeUnit unit) {
-        ByteArrayOutputStream out;
-        ObjectOutputStream oos = null;
+    private void rebuildJournal() {
+        closeJournalWriter();
+        File tmpFile = new File(mCacheDir, JOURNAL_FILE_TMP);
+        Writer writer = null;
         try {
-            out = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(out);
-            oos.writeObject(value);
-            byte[] data = out.toByteArray();
-            put(key, data, timeout, unit);
-            out.close();
-        } catch (Exception e) {
+            if (!mCacheDir.exists() && !mCacheDir.mkdirs()) {
+                return;
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(tmpFile), "US-ASCII"), 8192);
+            writer.write(MAGIC);
+            writer.write('\n');
+            writer.write(VERSION);
+            writer.write('\n');
+            List<Entry> entries;
+            mEvictionLock.lock();
+            try {
+                entries = new ArrayList<>(mCacheFiles.values());
+            } finally {
+                mEvictionLock.unlock();
+            }
+            for (Entry entry : entries) {
+                writer.write(putRecord(entry));
+            }
+            writer.close();
+            writer = null;
+            if (tmpFile.renameTo(mJournalFile)) {
+                mRedundantOpCount = 0;
+                mJournalWriter = newJournalWriter(true);
+            }
+        } catch (IOException e) {
             e.printStackTrace();
         } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private Writer newJournalWriter(boolean append) throws IOException {
+        mJournalStream = new FileOutputStream(mJournalFile, append);
+        return new BufferedWriter(new OutputStreamWriter(mJournalStream, "US-ASCII"), 8192);
+    }
+
+    private void closeJournalWriter() {
+        if (mJournalWriter != null) {
+            try {
+                mJournalWriter.close();
+            } catch (IOException ignored) {
+            }
+            mJournalWriter = null;
+            mJournalStream = null;
+        }
+    }
+
+    private void journalPut(Entry entry) {
+        appendJournal(putRecord(entry), true);
+    }
+
+    private static String putRecord(Entry entry) {
+        String record = PUT + ' ' + entry.file.getName() + ' ' + entry.length + ' ' + entry.lastAccess;
+        return entry.slot != null ? record + ' ' + SEGMENT + '\n' : record + '\n';
+    }
+
+    private void journalRead(Entry entry) {
+        //访问记录只写入缓冲区，随下一次 PUT/REMOVE 一起落盘
+        appendJournal(READ + ' ' + entry.file.getName() + ' ' + entry.lastAccess + '\n', false);
+    }
+
+    private void journalReads(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder records = new StringBuilder();
+        for (Entry entry : entries) {
+            records.append(READ).append(' ').append(entry.file.getName())
+                    .append(' ').append(entry.lastAccess).append('\n');
+        }
+        appendJournal(records.toString(), false, entries.size());
+    }
+
+    private void journalRemove(File file) {
+        appendJournal(REMOVE + ' ' + file.getName() + '\n', true);
+    }
+
+    private void appendJournal(String record, boolean flush) {
+        appendJournal(record, flush, 1);
+    }
+
+    private void appendJournal(String record, boolean flush, int opCount) {
+        synchronized (mJournalLock) {
+            if (mJournalWriter == null) {
+                return;
+            }
             try {
-                if (oos != null) {
-                    oos.close();
+                mJournalWriter.write(record);
+                if (flush && mBatching.get() == null) {
+                    syncJournal();
                 }
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            mRedundantOpCount += opCount;
+            if (mRedundantOpCount >= REDUNDANT_OP_COMPACT_THRESHOLD
+                    && mRedundantOpCount >= mCacheFiles.size()) {
+                rebuildJournal();
+            }
         }
     }
 
-    /**
-     * 添加缓存文件
-     *
-     * @param key     缓存文件key
-     * @param value   缓存数据
-     * @param timeout 设置超时删除
-     * @param unit    时间单位{@link TimeUnit}
-     */
-    public void put(String key, byte[] value, long timeout, TimeUnit unit) {
-        File file = newFile(key, timeout, unit);
-        writeDataToFile(file, value);
-        //重新计算缓存文件数量
-        int curCacheCount = mCacheCount.get();
-        while (curCacheCount + 1 > mMaxCount) {
-            long freedSize = removeOldest();
-            mCacheSize.addAndGet(-freedSize);
-            curCacheCount = mCacheCount.addAndGet(-1);
+    private void flushJournal() {
+        synchronized (mJournalLock) {
+            if (mJournalWriter == null) {
+                return;
+            }
+            try {
+                syncJournal();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void syncJournal() throws IOException {
+        mJournalWriter.flush();
+        if (mDurability == CacheConfig.Durability.FULL) {
+            mJournalStream.getFD().sync();
         }
-        mCacheCount.addAndGet(1);
+    }
 
-        //重新计算缓存文件总大小
-        long valueSize = file.length();
-        long curCacheSize = mCacheSize.get();
-        while (curCacheSize + valueSize > mMaxSize) {
-            long freedSize = removeOldest();
-            curCacheSize = mCacheSize.addAndGet(-freedSize);
+    private Entry get(String key) {
+        Entry entry = getEntry(key);
+        if (isObsolete(entry)) {
+            return null;
         }
-        mCacheSize.addAndGet(valueSize);
-        mLastModified.put(file, file.setLastModified(System.currentTimeMillis())
-                ? file.lastModified() : System.currentTimeMillis());
-        mCacheFiles.put(getFileKey(file), file);
+        entry.lastAccess = System.currentTimeMillis();
+        if (mConcurrent) {
+            recordRead(entry);
+        } else {
+            mEvictionLock.lock();
+            try {
+                //get 会将记录移动到访问顺序末尾
+                mCacheFiles.get(getFileKey(entry.file));
+            } finally {
+                mEvictionLock.unlock();
+            }
+            journalRead(entry);
+        }
+        return entry;
     }
 
     /**
-     * 获取序列化数据
-     *
-     * @param key 缓存文件key
-     * @return Serializable 数据
+     * 记录一次访问，缓冲区积累到一定数量后尝试批量应用，锁被占用时留给下一次写入处理
      */
-    public Serializable getSerializable(String key) {
-        byte[] data = getByte(key);
-        if (data != null) {
-            ByteArrayInputStream in = null;
-            ObjectInputStream ois = null;
+    private void recordRead(Entry entry) {
+        if (mReadBufferSize.incrementAndGet() > READ_BUFFER_MAX_SIZE) {
+            mReadBufferSize.decrementAndGet();
+            return;
+        }
+        mReadBuffer.offer(entry);
+        if (mReadBufferSize.get() >= READ_BUFFER_DRAIN_THRESHOLD && mEvictionLock.tryLock()) {
+            List<Entry> reads = new ArrayList<>();
             try {
-                in = new ByteArrayInputStream(data);
-                ois = new ObjectInputStream(in);
-                return (Serializable) ois.readObject();
-            } catch (Exception e) {
-                e.printStackTrace();
+                applyBufferedReads(reads);
             } finally {
-                try {
-                    if (in != null) {
-                        in.close();
-                    }
-                    if (ois != null) {
-                        ois.close();
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                mEvictionLock.unlock();
             }
+            journalReads(reads);
         }
-        return null;
     }
 
     /**
-     * 获取 byte 数据
+     * 将缓冲的访问记录应用到访问顺序，调用方需持有 {@link #mEvictionLock}
      *
-     * @param key 缓存文件key
-     * @return byte 数据
+     * @param reads 已应用的访问记录，用于释放锁后写入日志
      */
-    public byte[] getByte(String key) {
-        RandomAccessFile accessFile = null;
+    private void applyBufferedReads(List<Entry> reads) {
+        Entry entry;
+        while ((entry = mReadBuffer.poll()) != null) {
+            mReadBufferSize.decrementAndGet();
+            String fileKey = getFileKey(entry.file);
+            if (mIndex.get(fileKey) == entry) {
+                mCacheFiles.get(fileKey);
+                reads.add(entry);
+            }
+        }
+    }
+
+    /**
+     * 移除索引，索引已被替换时不做处理；分段中的记录在此释放
+     */
+    private void removeEntry(Entry entry) {
+        String fileKey = getFileKey(entry.file);
+        mEvictionLock.lock();
         try {
-            File file = get(key);
-            if (file == null || !file.exists()) {
-                return null;
+            if (mIndex.get(fileKey) != entry) {
+                return;
+            }
+            mCacheFiles.remove(fileKey);
+            mIndex.remove(fileKey);
+            mCacheSize -= entry.length;
+            if (entry.slot != null) {
+                mSegments.release(entry.slot);
             }
-            accessFile = new RandomAccessFile(file, "r");
-            byte[] byteArray = new byte[(int) accessFile.length()];
-            accessFile.read(byteArray);
-            return byteArray;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
         } finally {
-            if (accessFile != null) {
+            mEvictionLock.unlock();
+        }
+        journalRemove(entry.file);
+        if (entry.slot != null) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * 有效数据比例过低的分段交由后台合并，同一时间只有一个合并任务
+     */
+    private void scheduleCompaction() {
+        if (mSegments.nextCompaction() < 0 || !mCompacting.compareAndSet(false, true)) {
+            return;
+        }
+        Cache.ioExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    accessFile.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
+                    compactSegments();
+                } finally {
+                    mCompacting.set(false);
                 }
             }
-        }
+        });
     }
 
     /**
-     * 判断缓存的String数据是否到期
-     *
-     * @param key 文件保存的Key
-     * @return true：到期了 false：还没有到期
+     * 将分段中的有效数据依次移动到当前分段，然后删除原分段
      */
-    public boolean isObsolete(String key) {
-        File file = getFile(key);
-        if (file == null || !file.exists()) {
-            return true;
-        }
-        long timeout = getFileTimeout(file);
-        boolean isObsolete = timeout > 0 && timeout < System.currentTimeMillis();
-        if (isObsolete) {
-            if (file.delete()) {
-                mCacheFiles.remove(key);
-                mLastModified.remove(file);
-            } else {
-                isObsolete = false;
+    private void compactSegments() {
+        int segment;
+        while ((segment = mSegments.nextCompaction()) >= 0) {
+            List<Entry> entries = new ArrayList<>();
+            mEvictionLock.lock();
+            try {
+                for (Entry entry : mIndex.values()) {
+                    SegmentStore.Slot slot = entry.slot;
+                    if (slot != null && slot.segment == segment) {
+                        entries.add(entry);
+                    }
+                }
+            } finally {
+                mEvictionLock.unlock();
             }
+            for (Entry entry : entries) {
+                moveSegmentRecord(entry);
+            }
+            mSegments.finishCompaction(segment);
         }
-        return isObsolete;
     }
 
     /**
-     * 移除指定缓存数据
-     *
-     * @param key 缓存文件key
-     * @return 是否移除成功
+     * 复制记录到当前分段，索引在此期间被替换或移除时放弃复制的记录
      */
-    public boolean remove(String key) {
-        File file = getFile(key);
-        return file == null || !file.exists() || file.delete();
+    private void moveSegmentRecord(Entry entry) {
+        String fileKey = getFileKey(entry.file);
+        //持有写锁复制，避免复制的旧记录追加在相同 key 新写入的记录之后，重启后按最后一条记录恢复旧数据
+        synchronized (getWriteLock(fileKey)) {
+            SegmentStore.Slot slot = entry.slot;
+            if (mIndex.get(fileKey) != entry || slot == null) {
+                return;
+            }
+            SegmentStore.Slot moved = null;
+            boolean corrupted = false;
+            try {
+                SegmentStore.Record record = mSegments.read(slot);
+                if (record != null) {
+                    moved = mSegments.append(entry.file.getName(), record.header, record.data,
+                            mDurability != CacheConfig.Durability.NONE);
+                } else {
+                    corrupted = true;
+                }
+            } catch (FileNotFoundException e) {
+                //分段中的记录已全部释放，分段随之删除
+                return;
+            } catch (IOException e) {
+                e.printStackTrace();
+                corrupted = true;
+            }
+            if (corrupted) {
+                removeEntry(entry);
+                return;
+            }
+            mEvictionLock.lock();
+            try {
+                if (mIndex.get(fileKey) == entry && entry.slot == slot) {
+                    entry.slot = moved;
+                    mSegments.release(slot);
+                    return;
+                }
+            } finally {
+                mEvictionLock.unlock();
+            }
+            mSegments.release(moved);
+        }
+    }
+
+    private static boolean verify(EntryHeader header, ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return header.verify(buffer.array(), buffer.arrayOffset(), buffer.remaining());
+        }
+        CRC32 crc32 = new CRC32();
+        byte[] chunk = new byte[8192];
+        ByteBuffer duplicate = buffer.duplicate();
+        while (duplicate.hasRemaining()) {
+            int count = Math.min(chunk.length, duplicate.remaining());
+            duplicate.get(chunk, 0, count);
+            crc32.update(chunk, 0, count);
+        }
+        return header.crc == (int) crc32.getValue();
     }
 
     /**
-     * 清除缓存文件夹
+     * 丢弃已损坏或已被替换的缓存数据
      */
-    public boolean clear() {
-        mLastModified.clear();
-        mCacheFiles.clear();
-        mCacheSize.set(0);
-        return deleteFile(mCacheDir);
+    private void discard(Entry entry) {
+        String fileKey = getFileKey(entry.file);
+        synchronized (getWriteLock(fileKey)) {
+            Entry current = mIndex.get(fileKey);
+            if (current != null && current != entry) {
+                //已被重新写入，文件可能属于新的数据
+                return;
+            }
+            if (entry.slot == null) {
+                entry.file.delete();
+            }
+            removeEntry(entry);
+        }
     }
 
     /**
-     * 计算 cacheSize和cacheCount
+     * 持有被淘汰 key 的写锁删除文件并写入日志；期间相同文件已被重新写入时文件及日志都属于新的数据，不做处理
      */
-    private void calculateCacheSizeAndCacheCount() {
-        Executors.newSingleThreadExecutor().execute(new Runnable() {
-            @Override
-            public void run() {
-                int size = 0;
-                int count = 0;
-                File[] cachedFiles = mCacheDir.listFiles();
-                if (cachedFiles != null) {
-                    for (File cachedFile : cachedFiles) {
-                        size += cachedFile.length();
-                        count += 1;
-                        mLastModified.put(cachedFile, cachedFile.lastModified());
-                        mCacheFiles.put(getFileKey(cachedFile), cachedFile);
-                    }
-                    mCacheSize.set(size);
-                    mCacheCount.set(count);
+    private void deleteEvicted(Entry eldest) {
+        String fileKey = getFileKey(eldest.file);
+        synchronized (getWriteLock(fileKey)) {
+            Entry current = mIndex.get(fileKey);
+            if (current != null && current.file.equals(eldest.file)) {
+                if (eldest.slot == null && current.slot != null) {
+                    eldest.file.delete();
                 }
+                return;
             }
-        });
+            if (eldest.slot == null) {
+                eldest.file.delete();
+            }
+            journalRemove(eldest.file);
+        }
     }
 
-    private File get(String key) {
-        if (!isObsolete(key)) {
-            File file = getFile(key);
-            mLastModified.put(file, file.setLastModified(System.currentTimeMillis())
-                    ? file.lastModified() : System.currentTimeMillis());
-            return file;
-        }
-        return null;
+    /**
+     * 按文件 key（{@link KeyHash#hex(String)}）分段的写锁，写入、删除文件及对应的日志记录需持有
+     * <p>
+     * 加锁顺序：写锁 → {@link #mJournalLock} → {@link #mEvictionLock}，不能同时持有两个写锁
+     */
+    private Object getWriteLock(String fileKey) {
+        int hash = fileKey.hashCode();
+        hash ^= (hash >>> 16);
+        return mWriteLocks[hash & (WRITE_LOCK_STRIPES - 1)];
+    }
+
+    private static boolean isCacheFileName(String name) {
+        return name.matches("(-?\\d+|[0-9a-f]{32})(_\\d+)?");
     }
 
     private String getFileKey(File cachedFile) {
-        return cachedFile.getName().split("_")[0];
+        return getFileKey(cachedFile.getName());
     }
 
-    private File getFile(String key) {
-        return mCacheFiles.get(key.hashCode() + "");
+    private String getFileKey(String fileName) {
+        return fileName.split("_")[0];
+    }
+
+    private Entry getEntry(String key) {
+        Entry entry = mIndex.get(KeyHash.hex(key));
+        if (entry == null && mLegacyEntries) {
+            entry = mIndex.get(key.hashCode() + "");
+        }
+        return entry;
+    }
+
+    /**
+     * 检查是否存在旧版本以 {@link String#hashCode()} 命名的缓存
+     */
+    private void detectLegacyEntries() {
+        mEvictionLock.lock();
+        try {
+            for (String fileKey : mCacheFiles.keySet()) {
+                if (!KeyHash.isHex(fileKey)) {
+                    mLegacyEntries = true;
+                    return;
+                }
+            }
+        } finally {
+            mEvictionLock.unlock();
+        }
     }
 
     private long getFileTimeout(File cachedFile) {
@@ -268,90 +1376,191 @@ class FileCache {
         }
     }
 
-    private void writeDataToFile(File file, byte[] value) {
+    /**
+     * 先写入临时文件再重命名，不加锁的读取不会读到写了一半的文件
+     */
+    private boolean writeDataToFile(File file, EntryHeader header, byte[] value) {
+        File tmpFile = new File(file.getPath() + ".tmp");
         FileOutputStream out = null;
         try {
-            out = new FileOutputStream(file);
-            out.write(value);
+            out = new FileOutputStream(tmpFile);
+            DataOutputStream dos = new DataOutputStream(out);
+            header.write(dos);
+            dos.write(value);
+            if (mDurability != CacheConfig.Durability.NONE) {
+                out.getFD().sync();
+            }
+            out.close();
+            out = null;
+            return tmpFile.renameTo(file);
         } catch (Exception e) {
             e.printStackTrace();
+            return false;
         } finally {
             if (out != null) {
                 try {
-                    out.flush();
                     out.close();
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
             }
+            if (tmpFile.exists()) {
+                tmpFile.delete();
+            }
         }
     }
 
     private File newFile(String key, long timeout, TimeUnit unit) {
-        File file = getFile(key);
-        if (file != null) {
-            file.deleteOnExit();
-        }
-        String fileName = key.hashCode() + "";
+        String fileName = KeyHash.hex(key);
         if (timeout > -1) {
             long time = System.currentTimeMillis() + unit.toMillis(timeout);
-            fileName = key.hashCode() + "_" + time;
+            fileName = fileName + "_" + time;
         }
         return new File(mCacheDir, fileName);
     }
 
-    private boolean deleteFile(File file) {
-        if (file == null) {
-            return false;
+    private boolean deleteCacheFiles() {
+        File[] files = mCacheDir.listFiles();
+        if (files == null) {
+            return true;
         }
-        if (file.isFile()) {
-            return file.delete();
-        } else {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File f : files) {
-                    if (!deleteFile(f)) {
-                        return false;
-                    }
-                }
+        boolean deleted = true;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".tmp")) {
+                name = name.substring(0, name.length() - 4);
+            }
+            if (file.isFile() && (isCacheFileName(name) || name.equals(JOURNAL_FILE))) {
+                deleted &= file.delete();
             }
-            return true;
         }
+        return deleted;
     }
 
     /**
-     * 移除最老的文件
+     * 移除最久未访问的索引，调用方需持有 {@link #mEvictionLock}
      *
+     * @param evicted 被移除的索引，释放锁后通过 {@link #deleteEvicted(Entry)} 删除文件并写入日志
      * @return 移除文件的大小
      */
-    private long removeOldest() {
-        if (mLastModified.isEmpty()) {
+    private long removeOldest(List<Entry> evicted) {
+        Iterator<Entry> iterator = mCacheFiles.values().iterator();
+        if (!iterator.hasNext()) {
             return 0;
         }
+        Entry eldest = iterator.next();
+        iterator.remove();
+        mIndex.remove(getFileKey(eldest.file));
+        if (eldest.slot != null) {
+            mSegments.release(eldest.slot);
+        }
+        evicted.add(eldest);
+        return eldest.length;
+    }
 
-        File oldestFile = null;
-        Long oldestModified = null;
-        Set<Map.Entry<File, Long>> entries = mLastModified.entrySet();
-        synchronized (mLastModified) {
-            for (Map.Entry<File, Long> entry : entries) {
-                if (oldestFile == null) {
-                    oldestFile = entry.getKey();
-                    oldestModified = entry.getValue();
-                } else {
-                    Long lastModified = entry.getValue();
-                    if (lastModified < oldestModified) {
-                        oldestFile = entry.getKey();
-                        oldestModified = lastModified;
-                    }
-                }
+    /**
+     * 缓存数据及其序列化器标识
+     */
+    private static class Payload {
+
+        private final byte serializer;
+        private final byte[] data;
+
+        private Payload(byte serializer, byte[] data) {
+            this.serializer = serializer;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 限定在数据范围内并在读取结束时校验 CRC32 的输入流
+     */
+    private class EntryInputStream extends FilterInputStream {
+
+        private final EntryHeader mHeader;
+        private final Entry mEntry;
+        private final CRC32 mCrc32 = new CRC32();
+        private long mRemaining;
+
+        private EntryInputStream(InputStream in, EntryHeader header, Entry entry) {
+            super(in);
+            mHeader = header;
+            mEntry = entry;
+            mRemaining = header.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (mRemaining <= 0) {
+                return -1;
+            }
+            int count = in.read(b, off, (int) Math.min(len, mRemaining));
+            if (count == -1) {
+                throw new IOException("Unexpected end of cache entry: " + mEntry.file);
+            }
+            mCrc32.update(b, off, count);
+            mRemaining -= count;
+            if (mRemaining == 0 && mHeader.crc != (int) mCrc32.getValue()) {
+                discard(mEntry);
+                throw new IOException("Cache entry checksum mismatch: " + mEntry.file);
             }
+            return count;
         }
-        if (oldestFile != null) {
-            if (oldestFile.delete()) {
-                mLastModified.remove(oldestFile);
-                mCacheFiles.remove(getFileKey(oldestFile));
+
+        @Override
+        public long skip(long n) throws IOException {
+            //跳过的数据同样需要参与校验
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 0))];
+            long skipped = 0;
+            while (skipped < n) {
+                int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (count == -1) {
+                    break;
+                }
+                skipped += count;
             }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), mRemaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * 缓存文件索引
+     */
+    private static class Entry {
+
+        private final File file;
+        private final long length;
+        private volatile long lastAccess;
+        /**
+         * 数据在分段文件中的位置，单独存储为文件时为 null；分段合并时持有 {@link #mEvictionLock} 更新
+         */
+        private volatile SegmentStore.Slot slot;
+
+        private Entry(File file, long length, long lastAccess) {
+            this(file, length, lastAccess, null);
+        }
+
+        private Entry(File file, long length, long lastAccess, SegmentStore.Slot slot) {
+            this.file = file;
+            this.length = length;
+            this.lastAccess = lastAccess;
+            this.slot = slot;
         }
-        return 0;
     }
 }
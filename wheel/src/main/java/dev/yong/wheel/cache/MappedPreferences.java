@@ -0,0 +1,594 @@
+package dev.yong.wheel.cache;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 基于内存映射文件的键值存储，实现 {@link SharedPreferences} 接口，可直接替换 SharedPreferences 使用
+ * <p>
+ * 每次写入只把变更记录追加到映射内存中（由系统负责回写磁盘），不会像 SharedPreferences 那样重写整个文件，
+ * 也不会在 Activity.onPause 时阻塞等待 QueuedWork；无效记录过多或空间不足时压缩重写文件。
+ * <p>
+ * 文件格式：magic(4) | dataLength(4) | record*，每条记录为 type(1) | keyLength(2) | key | value，
+ * 记录完整写入后才更新 dataLength，进程中断不会留下半条记录。
+ *
+ * @author coderyong
+ */
+final class MappedPreferences implements SharedPreferences {
+
+    /**
+     * "WKV1"
+     */
+    private static final int MAGIC = 0x574B5631;
+    private static final int HEADER_SIZE = 8;
+    private static final int PAGE_SIZE = 4096;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_STRING_SET = 6;
+    private static final byte TYPE_REMOVE = 7;
+    private static final byte TYPE_CLEAR = 8;
+
+    private static final Object REMOVED = new Object();
+
+    private final File mFile;
+    private final Map<String, Object> mData = new HashMap<>();
+    private final WeakHashMap<OnSharedPreferenceChangeListener, Object> mListeners = new WeakHashMap<>();
+
+    private RandomAccessFile mAccessFile;
+    private MappedByteBuffer mBuffer;
+    private int mDataLength;
+    /**
+     * 压缩后的数据长度，用于判断无效记录的比例
+     */
+    private int mLiveLength;
+
+    MappedPreferences(File file) {
+        mFile = file;
+        synchronized (this) {
+            load();
+        }
+    }
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        return new HashMap<>(mData);
+    }
+
+    @Nullable
+    @Override
+    public synchronized String getString(String key, @Nullable String defValue) {
+        String value = (String) mData.get(key);
+        return value != null ? value : defValue;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        Set<String> value = (Set<String>) mData.get(key);
+        return value != null ? new HashSet<>(value) : defValues;
+    }
+
+    @Override
+    public synchronized int getInt(String key, int defValue) {
+        Integer value = (Integer) mData.get(key);
+        return value != null ? value : defValue;
+    }
+
+    @Override
+    public synchronized long getLong(String key, long defValue) {
+        Long value = (Long) mData.get(key);
+        return value != null ? value : defValue;
+    }
+
+    @Override
+    public synchronized float getFloat(String key, float defValue) {
+        Float value = (Float) mData.get(key);
+        return value != null ? value : defValue;
+    }
+
+    @Override
+    public synchronized boolean getBoolean(String key, boolean defValue) {
+        Boolean value = (Boolean) mData.get(key);
+        return value != null ? value : defValue;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return mData.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new EditorImpl();
+    }
+
+    @Override
+    public synchronized void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        mListeners.put(listener, this);
+    }
+
+    @Override
+    public synchronized void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * 写入修改，{@link #REMOVED} 表示删除
+     *
+     * @param sync 是否同步到磁盘
+     */
+    private boolean write(Map<String, Object> modified, boolean clear, boolean sync) {
+        List<String> changedKeys = new ArrayList<>();
+        boolean success = true;
+        synchronized (this) {
+            if (mBuffer == null) {
+                //已关闭
+                return false;
+            }
+            try {
+                if (clear) {
+                    changedKeys.addAll(mData.keySet());
+                    mData.clear();
+                    mLiveLength = 0;
+                    append(TYPE_CLEAR, "", null);
+                }
+                for (Map.Entry<String, Object> entry : modified.entrySet()) {
+                    String key = entry.getKey();
+                    Object value = entry.getValue();
+                    //先更新内存数据及有效数据长度再追加记录，追加时可能触发压缩，压缩以内存数据为准
+                    if (value == REMOVED) {
+                        Object previous = mData.remove(key);
+                        if (previous == null) {
+                            continue;
+                        }
+                        mLiveLength -= recordLength(key, previous);
+                        append(TYPE_REMOVE, key, null);
+                    } else {
+                        if (value.equals(mData.get(key))) {
+                            continue;
+                        }
+                        Object previous = mData.put(key, value);
+                        if (previous != null) {
+                            mLiveLength -= recordLength(key, previous);
+                        }
+                        mLiveLength += recordLength(key, value);
+                        append(typeOf(value), key, value);
+                    }
+                    changedKeys.add(key);
+                }
+                //无效记录超过一半时压缩
+                if (mDataLength > PAGE_SIZE && mDataLength > mLiveLength * 2) {
+                    compact();
+                }
+                if (sync && mBuffer != null) {
+                    mBuffer.force();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                success = false;
+            }
+        }
+        notifyListeners(changedKeys);
+        return success;
+    }
+
+    private void notifyListeners(final List<String> changedKeys) {
+        final List<OnSharedPreferenceChangeListener> listeners;
+        synchronized (this) {
+            if (changedKeys.isEmpty() || mListeners.isEmpty()) {
+                return;
+            }
+            listeners = new ArrayList<>(mListeners.keySet());
+        }
+        Runnable notify = new Runnable() {
+            @Override
+            public void run() {
+                for (String key : changedKeys) {
+                    for (OnSharedPreferenceChangeListener listener : listeners) {
+                        listener.onSharedPreferenceChanged(MappedPreferences.this, key);
+                    }
+                }
+            }
+        };
+        //与 SharedPreferences 一致，在主线程回调
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            notify.run();
+        } else {
+            new Handler(Looper.getMainLooper()).post(notify);
+        }
+    }
+
+    /**
+     * 读取文件内容，调用方需持有当前对象锁
+     */
+    private void load() {
+        try {
+            File parent = mFile.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            mAccessFile = new RandomAccessFile(mFile, "rw");
+            long fileLength = mAccessFile.length();
+            if (fileLength < HEADER_SIZE) {
+                map(PAGE_SIZE);
+                mBuffer.putInt(0, MAGIC);
+                setDataLength(0);
+                return;
+            }
+            map(fileLength);
+            if (mBuffer.getInt(0) != MAGIC) {
+                throw new IOException("Unexpected file header: " + mFile);
+            }
+            int dataLength = Math.min(mBuffer.getInt(4), (int) fileLength - HEADER_SIZE);
+            ByteBuffer data = mBuffer.duplicate();
+            data.position(HEADER_SIZE);
+            data.limit(HEADER_SIZE + Math.max(dataLength, 0));
+            int position = HEADER_SIZE;
+            try {
+                while (data.hasRemaining()) {
+                    readRecord(data);
+                    position = data.position();
+                }
+            } catch (RuntimeException e) {
+                //记录不完整，丢弃之后的内容
+            }
+            mDataLength = position - HEADER_SIZE;
+            mLiveLength = 0;
+            for (Map.Entry<String, Object> entry : mData.entrySet()) {
+                mLiveLength += recordLength(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            //文件损坏时重新创建
+            mData.clear();
+            try {
+                closeFile();
+                mFile.delete();
+                mAccessFile = new RandomAccessFile(mFile, "rw");
+                map(PAGE_SIZE);
+                mBuffer.putInt(0, MAGIC);
+                setDataLength(0);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private void readRecord(ByteBuffer data) {
+        byte type = data.get();
+        byte[] keyBytes = new byte[data.getShort() & 0xFFFF];
+        data.get(keyBytes);
+        String key = new String(keyBytes, UTF_8);
+        switch (type) {
+            case TYPE_STRING:
+                mData.put(key, readString(data));
+                break;
+            case TYPE_INT:
+                mData.put(key, data.getInt());
+                break;
+            case TYPE_LONG:
+                mData.put(key, data.getLong());
+                break;
+            case TYPE_FLOAT:
+                mData.put(key, data.getFloat());
+                break;
+            case TYPE_BOOLEAN:
+                mData.put(key, data.get() != 0);
+                break;
+            case TYPE_STRING_SET:
+                int count = data.getInt();
+                Set<String> set = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    set.add(readString(data));
+                }
+                mData.put(key, set);
+                break;
+            case TYPE_REMOVE:
+                mData.remove(key);
+                break;
+            case TYPE_CLEAR:
+                mData.clear();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type: " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer data) {
+        byte[] bytes = new byte[data.getInt()];
+        data.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * 追加一条记录，空间不足时压缩；调用前内存数据需已包含该修改，压缩后的文件已反映该修改，无需再追加
+     */
+    private void append(byte type, String key, Object value) throws IOException {
+        byte[] record = encode(type, key, value);
+        if (HEADER_SIZE + mDataLength + record.length > mBuffer.capacity()) {
+            compact();
+            return;
+        }
+        ByteBuffer buffer = mBuffer.duplicate();
+        buffer.position(HEADER_SIZE + mDataLength);
+        buffer.put(record);
+        setDataLength(mDataLength + record.length);
+    }
+
+    /**
+     * 仅保留有效数据，写入临时文件后替换，避免压缩过程中断导致数据丢失
+     */
+    private void compact() throws IOException {
+        //按实际编码长度分配，不依赖 mLiveLength
+        List<byte[]> records = new ArrayList<>(mData.size());
+        int dataLength = 0;
+        for (Map.Entry<String, Object> entry : mData.entrySet()) {
+            byte[] record = encode(typeOf(entry.getValue()), entry.getKey(), entry.getValue());
+            records.add(record);
+            dataLength += record.length;
+        }
+        ByteBuffer data = ByteBuffer.allocate(dataLength);
+        for (byte[] record : records) {
+            data.put(record);
+        }
+        long capacity = PAGE_SIZE;
+        while (capacity < HEADER_SIZE + dataLength * 2L) {
+            capacity *= 2;
+        }
+        File tmpFile = new File(mFile.getPath() + ".tmp");
+        RandomAccessFile tmp = new RandomAccessFile(tmpFile, "rw");
+        try {
+            tmp.setLength(capacity);
+            tmp.writeInt(MAGIC);
+            tmp.writeInt(dataLength);
+            tmp.write(data.array(), 0, dataLength);
+            tmp.getFD().sync();
+        } finally {
+            tmp.close();
+        }
+        closeFile();
+        if (!tmpFile.renameTo(mFile)) {
+            tmpFile.delete();
+            mAccessFile = new RandomAccessFile(mFile, "rw");
+            map(mAccessFile.length());
+            throw new IOException("Failed to replace " + mFile);
+        }
+        mAccessFile = new RandomAccessFile(mFile, "rw");
+        map(capacity);
+        mDataLength = dataLength;
+        mLiveLength = dataLength;
+    }
+
+    private void map(long capacity) throws IOException {
+        if (mAccessFile.length() < capacity) {
+            mAccessFile.setLength(capacity);
+        }
+        mBuffer = mAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void setDataLength(int dataLength) {
+        mDataLength = dataLength;
+        mBuffer.putInt(4, dataLength);
+    }
+
+    /**
+     * 将映射内存写回磁盘并关闭文件，之后只能读取已加载的数据，写入返回失败
+     */
+    synchronized void close() {
+        if (mBuffer != null) {
+            mBuffer.force();
+        }
+        closeFile();
+    }
+
+    private void closeFile() {
+        mBuffer = null;
+        if (mAccessFile != null) {
+            try {
+                mAccessFile.close();
+            } catch (IOException ignored) {
+            }
+            mAccessFile = null;
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof String) {
+            return TYPE_STRING;
+        } else if (value instanceof Integer) {
+            return TYPE_INT;
+        } else if (value instanceof Long) {
+            return TYPE_LONG;
+        } else if (value instanceof Float) {
+            return TYPE_FLOAT;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        } else if (value instanceof Set) {
+            return TYPE_STRING_SET;
+        }
+        throw new IllegalArgumentException("Unsupported type: " + value.getClass().getName());
+    }
+
+    private static int recordLength(String key, Object value) {
+        return encode(typeOf(value), key, value).length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] encode(byte type, String key, Object value) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        if (keyBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Key too long: " + key);
+        }
+        List<byte[]> strings = new ArrayList<>();
+        int valueLength;
+        switch (type) {
+            case TYPE_STRING:
+                strings.add(((String) value).getBytes(UTF_8));
+                valueLength = 4 + strings.get(0).length;
+                break;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                valueLength = 4;
+                break;
+            case TYPE_LONG:
+                valueLength = 8;
+                break;
+            case TYPE_BOOLEAN:
+                valueLength = 1;
+                break;
+            case TYPE_STRING_SET:
+                valueLength = 4;
+                for (String item : (Set<String>) value) {
+                    byte[] bytes = item.getBytes(UTF_8);
+                    strings.add(bytes);
+                    valueLength += 4 + bytes.length;
+                }
+                break;
+            default:
+                valueLength = 0;
+                break;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(3 + keyBytes.length + valueLength);
+        buffer.put(type);
+        buffer.putShort((short) keyBytes.length);
+        buffer.put(keyBytes);
+        switch (type) {
+            case TYPE_STRING:
+                buffer.putInt(strings.get(0).length).put(strings.get(0));
+                break;
+            case TYPE_INT:
+                buffer.putInt((Integer) value);
+                break;
+            case TYPE_FLOAT:
+                buffer.putFloat((Float) value);
+                break;
+            case TYPE_LONG:
+                buffer.putLong((Long) value);
+                break;
+            case TYPE_BOOLEAN:
+                buffer.put((byte) ((Boolean) value ? 1 : 0));
+                break;
+            case TYPE_STRING_SET:
+                buffer.putInt(strings.size());
+                for (byte[] bytes : strings) {
+                    buffer.putInt(bytes.length).put(bytes);
+                }
+                break;
+            default:
+                break;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 与 SharedPreferences 相同，修改在 {@link #apply()} 或 {@link #commit()} 后生效，提交后可继续复用
+     */
+    private final class EditorImpl implements Editor {
+
+        private final Map<String, Object> mModified = new HashMap<>();
+        private boolean mClear;
+
+        @Override
+        public synchronized Editor putString(String key, @Nullable String value) {
+            mModified.put(key, value == null ? REMOVED : value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putStringSet(String key, @Nullable Set<String> values) {
+            mModified.put(key, values == null ? REMOVED : new HashSet<>(values));
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putInt(String key, int value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putLong(String key, long value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putFloat(String key, float value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor putBoolean(String key, boolean value) {
+            mModified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor remove(String key) {
+            mModified.put(key, REMOVED);
+            return this;
+        }
+
+        @Override
+        public synchronized Editor clear() {
+            mClear = true;
+            return this;
+        }
+
+        /**
+         * 写入并同步到磁盘
+         */
+        @Override
+        public boolean commit() {
+            return write(true);
+        }
+
+        /**
+         * 写入映射内存，由系统负责回写磁盘
+         */
+        @Override
+        public void apply() {
+            write(false);
+        }
+
+        private boolean write(boolean sync) {
+            Map<String, Object> modified;
+            boolean clear;
+            synchronized (this) {
+                if (!mClear && mModified.isEmpty()) {
+                    return true;
+                }
+                modified = new HashMap<>(mModified);
+                clear = mClear;
+                mModified.clear();
+                mClear = false;
+            }
+            return MappedPreferences.this.write(modified, clear, sync);
+        }
+    }
+}
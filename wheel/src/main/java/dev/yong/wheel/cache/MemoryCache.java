@@ -0,0 +1,304 @@
+package dev.yong.wheel.cache;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 有容量上限的内存缓存
+ * <p>
+ * 采用分段LRU（SLRU）：新数据进入试用区，再次命中后晋升到保护区，保护区溢出的数据降级回试用区，
+ * 淘汰总是优先发生在试用区，只访问一次的数据不会挤掉反复访问的热点数据。
+ * 数据大小由 {@link Weigher} 计算，可通过 {@link #onTrimMemory(int)} 响应系统内存紧张。
+ *
+ * @author coderyong
+ */
+public class MemoryCache implements ComponentCallbacks2 {
+
+    /**
+     * 保护区占总容量的比例
+     */
+    private static final float PROTECTED_RATIO = 0.8F;
+
+    private final LinkedHashMap<String, Node> mProbation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Node> mProtected = new LinkedHashMap<>(16, 0.75f, true);
+    private final Weigher mWeigher;
+    private long mMaxWeight;
+    private long mWeight;
+    private long mProtectedWeight;
+
+    private long mHitCount;
+    private long mMissCount;
+    private long mEvictionCount;
+
+    /**
+     * @param maxWeight 容量上限，单位由 weigher 决定
+     * @param weigher   数据大小计算方式，为空时使用 {@link #DEFAULT_WEIGHER}（估算字节数）
+     */
+    public MemoryCache(long maxWeight, Weigher weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight <= 0");
+        }
+        mMaxWeight = maxWeight;
+        mWeigher = weigher == null ? DEFAULT_WEIGHER : weigher;
+    }
+
+    public synchronized Object get(String key) {
+        Node node = mProtected.get(key);
+        if (node == null) {
+            node = mProbation.remove(key);
+            if (node == null) {
+                mMissCount++;
+                return null;
+            }
+            //试用区数据再次命中，晋升到保护区
+            mProtected.put(key, node);
+            mProtectedWeight += node.weight;
+            demoteProtected();
+        }
+        mHitCount++;
+        return node.value;
+    }
+
+    public synchronized Object put(String key, Object value) {
+        return put(key, value, -1);
+    }
+
+    /**
+     * 保存数据
+     *
+     * @param size 数据序列化后的字节数，未知时为 -1；使用 {@link #DEFAULT_WEIGHER} 时据此估算其他类型对象的大小，
+     *             使用自定义 {@link Weigher} 时忽略
+     */
+    public synchronized Object put(String key, Object value, int size) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key == null || value == null");
+        }
+        Object previous = remove(key);
+        Node node = new Node(value, weigh(key, value, size));
+        if (node.weight > mMaxWeight) {
+            //单个数据超出容量上限，不缓存
+            return previous;
+        }
+        mProbation.put(key, node);
+        mWeight += node.weight;
+        trimToSize(mMaxWeight);
+        return previous;
+    }
+
+    /**
+     * 数据仍为 value 时按序列化后的字节数重新计算大小，用于先写入内存、后写入文件缓存的数据
+     */
+    synchronized void updateSize(String key, Object value, int size) {
+        if (mWeigher != DEFAULT_WEIGHER || size < 0) {
+            return;
+        }
+        boolean isProtected = true;
+        Node node = mProtected.get(key);
+        if (node == null) {
+            isProtected = false;
+            node = mProbation.get(key);
+        }
+        if (node == null || node.value != value) {
+            return;
+        }
+        int weight = weigh(key, value, size);
+        if (weight > mMaxWeight) {
+            remove(key);
+            return;
+        }
+        mWeight += weight - node.weight;
+        if (isProtected) {
+            mProtectedWeight += weight - node.weight;
+        }
+        node.weight = weight;
+        trimToSize(mMaxWeight);
+        demoteProtected();
+    }
+
+    public synchronized Object remove(String key) {
+        Node node = mProtected.remove(key);
+        if (node != null) {
+            mProtectedWeight -= node.weight;
+        } else {
+            node = mProbation.remove(key);
+        }
+        if (node == null) {
+            return null;
+        }
+        mWeight -= node.weight;
+        return node.value;
+    }
+
+    public synchronized boolean containsKey(String key) {
+        return mProtected.containsKey(key) || mProbation.containsKey(key);
+    }
+
+    /**
+     * 淘汰数据直到总大小不超过 maxWeight
+     */
+    public synchronized void trimToSize(long maxWeight) {
+        while (mWeight > maxWeight) {
+            LinkedHashMap<String, Node> segment = mProbation.isEmpty() ? mProtected : mProbation;
+            Iterator<Map.Entry<String, Node>> iterator = segment.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                break;
+            }
+            Node eldest = iterator.next().getValue();
+            iterator.remove();
+            mWeight -= eldest.weight;
+            if (segment == mProtected) {
+                mProtectedWeight -= eldest.weight;
+            }
+            mEvictionCount++;
+        }
+    }
+
+    /**
+     * 调整容量上限
+     */
+    public synchronized void resize(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight <= 0");
+        }
+        mMaxWeight = maxWeight;
+        trimToSize(maxWeight);
+        demoteProtected();
+    }
+
+    public synchronized void clear() {
+        mProbation.clear();
+        mProtected.clear();
+        mWeight = 0;
+        mProtectedWeight = 0;
+    }
+
+    public synchronized long weight() {
+        return mWeight;
+    }
+
+    public synchronized long maxWeight() {
+        return mMaxWeight;
+    }
+
+    public synchronized int size() {
+        return mProbation.size() + mProtected.size();
+    }
+
+    public synchronized long hitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long missCount() {
+        return mMissCount;
+    }
+
+    public synchronized long evictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(0);
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(maxWeight() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        trimToSize(0);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    @Override
+    public synchronized String toString() {
+        long accesses = mHitCount + mMissCount;
+        int hitPercent = accesses != 0 ? (int) (100 * mHitCount / accesses) : 0;
+        return "MemoryCache[weight=" + mWeight + ",maxWeight=" + mMaxWeight + ",hits=" + mHitCount
+                + ",misses=" + mMissCount + ",evictions=" + mEvictionCount + ",hitRate=" + hitPercent + "%]";
+    }
+
+    private int weigh(String key, Object value, int size) {
+        return Math.max(0, mWeigher == DEFAULT_WEIGHER ? estimate(key, value, size) : mWeigher.sizeOf(key, value));
+    }
+
+    /**
+     * 保护区溢出时将最久未访问的数据降级到试用区
+     */
+    private void demoteProtected() {
+        long maxProtected = (long) (mMaxWeight * PROTECTED_RATIO);
+        Iterator<Map.Entry<String, Node>> iterator = mProtected.entrySet().iterator();
+        while (mProtectedWeight > maxProtected && iterator.hasNext()) {
+            Map.Entry<String, Node> eldest = iterator.next();
+            iterator.remove();
+            mProtectedWeight -= eldest.getValue().weight;
+            mProbation.put(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * 数据大小计算
+     */
+    public interface Weigher {
+
+        /**
+         * 计算数据大小，结果不应随时间变化
+         *
+         * @param key   缓存Key
+         * @param value 缓存内容
+         * @return 数据大小
+         */
+        int sizeOf(String key, Object value);
+    }
+
+    /**
+     * 粗略估算数据占用的字节数；其他对象按 {@link #put(String, Object, int)} 传入的序列化后字节数估算（如 Cache 的文件缓存数据），
+     * 未知时按 64 字节计算，只保存在内存中的较大对象应使用自定义 {@link Weigher}
+     */
+    public static final Weigher DEFAULT_WEIGHER = new Weigher() {
+        @Override
+        public int sizeOf(String key, Object value) {
+            return estimate(key, value, -1);
+        }
+    };
+
+    /**
+     * @param serializedSize 序列化后的字节数，未知时为 -1
+     */
+    private static int estimate(String key, Object value, int serializedSize) {
+        int size = 32 + key.length() * 2;
+        if (value instanceof String) {
+            size += 40 + ((String) value).length() * 2;
+        } else if (value instanceof byte[]) {
+            size += 16 + ((byte[]) value).length;
+        } else if (value instanceof Number || value instanceof Boolean) {
+            size += 16;
+        } else if (serializedSize >= 0) {
+            size += 16 + serializedSize;
+        } else {
+            size += 64;
+        }
+        return size;
+    }
+
+    private static class Node {
+
+        private final Object value;
+        private int weight;
+
+        private Node(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
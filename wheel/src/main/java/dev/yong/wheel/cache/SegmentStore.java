@@ -0,0 +1,352 @@
+package dev.yong.wheel.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 小数据的分段存储
+ * <p>
+ * 数据依次追加到当前分段文件，写满后创建新的分段；每条记录为 nameLength(2) | name | {@link EntryHeader} | data，
+ * name 为 {@link FileCache} 中对应的缓存文件名。位置索引由 {@link FileCache} 保存，
+ * 本类只统计各分段中有效数据的大小，有效比例过低的分段由 {@link FileCache} 在后台合并。
+ *
+ * @author coderyong
+ */
+final class SegmentStore {
+
+    /**
+     * 分段文件大小上限
+     */
+    static final int SEGMENT_SIZE = 1024 * 1024;
+    /**
+     * 有效数据低于该比例时合并分段
+     */
+    private static final float COMPACT_RATIO = 0.5F;
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private final File mDir;
+    private final TreeMap<Integer, Segment> mSegments = new TreeMap<>();
+    private Segment mActive;
+    private FileOutputStream mOut;
+
+    SegmentStore(File dir) {
+        mDir = dir;
+    }
+
+    /**
+     * 扫描所有分段，同名记录以最后写入的为准；扫描后所有分段的有效数据均为 0，需通过 {@link #retain(Slot)} 标记
+     *
+     * @return 缓存文件名与记录位置
+     */
+    synchronized Map<String, Slot> load() {
+        Map<String, Slot> slots = new HashMap<>();
+        mSegments.clear();
+        File[] files = mDir.listFiles();
+        if (files == null) {
+            return slots;
+        }
+        for (File file : files) {
+            int id = segmentId(file.getName());
+            if (id >= 0) {
+                mSegments.put(id, new Segment(id, file));
+            }
+        }
+        for (Segment segment : mSegments.values()) {
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file), 8192));
+                long offset = 0;
+                while (true) {
+                    int nameLength;
+                    try {
+                        nameLength = in.readUnsignedShort();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    byte[] name = new byte[nameLength];
+                    in.readFully(name);
+                    EntryHeader header = EntryHeader.read(in);
+                    if (header == null || header.length < 0) {
+                        break;
+                    }
+                    skipFully(in, header.length);
+                    int size = 2 + nameLength + header.size() + header.length;
+                    slots.put(new String(name, US_ASCII), new Slot(segment.id, offset, size));
+                    offset += size;
+                }
+                segment.size = offset;
+            } catch (IOException e) {
+                //进程中断时最后一条记录可能不完整，之前的记录依然有效
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * 标记记录为有效数据，仅在加载时使用
+     */
+    synchronized void retain(Slot slot) {
+        Segment segment = mSegments.get(slot.segment);
+        if (segment != null) {
+            segment.live += slot.size;
+        }
+    }
+
+    /**
+     * 加载完成，删除没有有效数据的分段
+     */
+    synchronized void finishLoad() {
+        for (Segment segment : mSegments.values().toArray(new Segment[0])) {
+            if (segment.live <= 0) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param sync 是否同步到磁盘
+     * @return 记录位置
+     */
+    synchronized Slot append(String name, EntryHeader header, byte[] data, boolean sync) throws IOException {
+        byte[] nameBytes = name.getBytes(US_ASCII);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(2 + nameBytes.length + header.size() + data.length);
+        DataOutputStream record = new DataOutputStream(buffer);
+        record.writeShort(nameBytes.length);
+        record.write(nameBytes);
+        header.write(record);
+        record.write(data);
+        int size = buffer.size();
+        if (mActive == null || (mActive.size > 0 && mActive.size + size > SEGMENT_SIZE)) {
+            roll();
+        }
+        //先完整写入记录，进程中断时只会留下不完整的末尾记录
+        buffer.writeTo(mOut);
+        if (sync) {
+            mOut.getFD().sync();
+        }
+        Slot slot = new Slot(mActive.id, mActive.size, size);
+        mActive.size += size;
+        mActive.live += size;
+        return slot;
+    }
+
+    /**
+     * 读取记录
+     *
+     * @return 记录，已损坏时返回 null
+     * @throws IOException 分段文件不存在或读取失败
+     */
+    Record read(Slot slot) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(segmentFile(slot.segment), "r");
+        try {
+            file.seek(slot.offset);
+            int nameLength = file.readUnsignedShort();
+            file.skipBytes(nameLength);
+            EntryHeader header = EntryHeader.read(file);
+            if (header == null || 2 + nameLength + header.size() + (long) header.length != slot.size) {
+                return null;
+            }
+            byte[] data = new byte[header.length];
+            file.readFully(data);
+            if (!header.verify(data, 0, data.length)) {
+                return null;
+            }
+            return new Record(header, data);
+        } catch (EOFException e) {
+            return null;
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * 标记记录已失效，重复调用无影响
+     */
+    synchronized void release(Slot slot) {
+        if (slot.released) {
+            return;
+        }
+        slot.released = true;
+        Segment segment = mSegments.get(slot.segment);
+        if (segment == null) {
+            return;
+        }
+        segment.live -= slot.size;
+        if (segment.live <= 0 && segment != mActive) {
+            deleteSegment(segment);
+        }
+    }
+
+    /**
+     * 获取需要合并的分段
+     *
+     * @return 分段id，没有时返回 -1
+     */
+    synchronized int nextCompaction() {
+        for (Segment segment : mSegments.values()) {
+            if (segment != mActive && segment.live < segment.size * COMPACT_RATIO) {
+                return segment.id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 合并完成，删除分段
+     */
+    synchronized void finishCompaction(int id) {
+        Segment segment = mSegments.get(id);
+        if (segment != null && segment != mActive) {
+            deleteSegment(segment);
+        }
+    }
+
+    /**
+     * 关闭当前分段的输出流，之后的写入使用新的分段
+     */
+    synchronized void close() {
+        closeOutput();
+        mActive = null;
+    }
+
+    synchronized void clear() {
+        closeOutput();
+        mActive = null;
+        for (Segment segment : mSegments.values().toArray(new Segment[0])) {
+            deleteSegment(segment);
+        }
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (segmentId(file.getName()) >= 0) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        closeOutput();
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            throw new IOException("Unable to create segment directory: " + mDir);
+        }
+        int id = mSegments.isEmpty() ? 0 : mSegments.lastKey() + 1;
+        Segment segment = new Segment(id, segmentFile(id));
+        mOut = new FileOutputStream(segment.file);
+        mSegments.put(id, segment);
+        Segment previous = mActive;
+        mActive = segment;
+        if (previous != null && previous.live <= 0) {
+            deleteSegment(previous);
+        }
+    }
+
+    private void closeOutput() {
+        if (mOut != null) {
+            try {
+                mOut.close();
+            } catch (IOException ignored) {
+            }
+            mOut = null;
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        mSegments.remove(segment.id);
+        segment.file.delete();
+    }
+
+    private File segmentFile(int id) {
+        return new File(mDir, SEGMENT_PREFIX + id);
+    }
+
+    private static int segmentId(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int count) throws IOException {
+        while (count > 0) {
+            int skipped = in.skipBytes(count);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * 记录位置
+     */
+    static final class Slot {
+
+        final int segment;
+        final long offset;
+        /**
+         * 记录总长度
+         */
+        final int size;
+        /**
+         * 由 {@link SegmentStore} 的锁保护
+         */
+        private boolean released;
+
+        Slot(int segment, long offset, int size) {
+            this.segment = segment;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
+    static final class Record {
+
+        final EntryHeader header;
+        final byte[] data;
+
+        private Record(EntryHeader header, byte[] data) {
+            this.header = header;
+            this.data = data;
+        }
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final File file;
+        private long size;
+        private long live;
+
+        private Segment(int id, File file) {
+            this.id = id;
+            this.file = file;
+        }
+    }
+}
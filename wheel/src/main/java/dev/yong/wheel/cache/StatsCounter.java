@@ -0,0 +1,125 @@
+package dev.yong.wheel.cache;
+
+/**
+ * 缓存统计记录，未开启时所有记录方法直接返回
+ *
+ * @author coderyong
+ */
+final class StatsCounter {
+
+    private volatile boolean mEnabled;
+
+    private final StripedCounter mMemoryHitCount = new StripedCounter();
+    private final StripedCounter mMemoryMissCount = new StripedCounter();
+    private final StripedCounter mFileHitCount = new StripedCounter();
+    private final StripedCounter mFileMissCount = new StripedCounter();
+    private final StripedCounter mTotalLoadTime = new StripedCounter();
+    private final StripedCounter[] mLoadTimeHistogram = new StripedCounter[CacheStats.LOAD_TIME_BUCKETS.length + 1];
+    private final StripedCounter mSizeEvictionCount = new StripedCounter();
+    private final StripedCounter mCountEvictionCount = new StripedCounter();
+    private final StripedCounter mExpiryEvictionCount = new StripedCounter();
+    private final StripedCounter mBytesRead = new StripedCounter();
+    private final StripedCounter mBytesWritten = new StripedCounter();
+    private final StripedCounter mSerializationCount = new StripedCounter();
+    private final StripedCounter mSerializationTime = new StripedCounter();
+    private final StripedCounter mDeserializationCount = new StripedCounter();
+    private final StripedCounter mDeserializationTime = new StripedCounter();
+
+    StatsCounter() {
+        for (int i = 0; i < mLoadTimeHistogram.length; i++) {
+            mLoadTimeHistogram[i] = new StripedCounter();
+        }
+    }
+
+    void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * 开启时返回当前时间（纳秒），未开启时返回 0，避免不必要的 {@link System#nanoTime()} 调用
+     */
+    long startTime() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    void recordMemory(boolean hit) {
+        if (mEnabled) {
+            (hit ? mMemoryHitCount : mMemoryMissCount).increment();
+        }
+    }
+
+    void recordLoad(boolean hit, long startTime) {
+        if (!mEnabled || startTime == 0) {
+            return;
+        }
+        long time = System.nanoTime() - startTime;
+        (hit ? mFileHitCount : mFileMissCount).increment();
+        mTotalLoadTime.add(time);
+        long millis = time / 1000000;
+        int bucket = 0;
+        while (bucket < CacheStats.LOAD_TIME_BUCKETS.length && millis >= CacheStats.LOAD_TIME_BUCKETS[bucket]) {
+            bucket++;
+        }
+        mLoadTimeHistogram[bucket].increment();
+    }
+
+    void recordSizeEviction() {
+        if (mEnabled) {
+            mSizeEvictionCount.increment();
+        }
+    }
+
+    void recordCountEviction() {
+        if (mEnabled) {
+            mCountEvictionCount.increment();
+        }
+    }
+
+    void recordExpiry(int count) {
+        if (mEnabled && count > 0) {
+            mExpiryEvictionCount.add(count);
+        }
+    }
+
+    void recordBytesRead(long bytes) {
+        if (mEnabled) {
+            mBytesRead.add(bytes);
+        }
+    }
+
+    void recordBytesWritten(long bytes) {
+        if (mEnabled) {
+            mBytesWritten.add(bytes);
+        }
+    }
+
+    void recordSerialization(long startTime) {
+        if (mEnabled && startTime != 0) {
+            mSerializationCount.increment();
+            mSerializationTime.add(System.nanoTime() - startTime);
+        }
+    }
+
+    void recordDeserialization(long startTime) {
+        if (mEnabled && startTime != 0) {
+            mDeserializationCount.increment();
+            mDeserializationTime.add(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * @param memoryEvictionCount 内存缓存淘汰次数，由 {@link MemoryCache#evictionCount()} 提供
+     */
+    CacheStats snapshot(long memoryEvictionCount) {
+        long[] histogram = new long[mLoadTimeHistogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = mLoadTimeHistogram[i].sum();
+        }
+        return new CacheStats(mMemoryHitCount.sum(), mMemoryMissCount.sum(),
+                mFileHitCount.sum(), mFileMissCount.sum(), mTotalLoadTime.sum(), histogram,
+                memoryEvictionCount, mSizeEvictionCount.sum(), mCountEvictionCount.sum(),
+                mExpiryEvictionCount.sum(), mBytesRead.sum(), mBytesWritten.sum(),
+                mSerializationCount.sum(), mSerializationTime.sum(),
+                mDeserializationCount.sum(), mDeserializationTime.sum());
+    }
+}
@@ -0,0 +1,41 @@
+package dev.yong.wheel.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段计数器，作用与 {@code java.util.concurrent.atomic.LongAdder} 相同（API 24 起才可用）
+ * <p>
+ * 不同线程累加到不同的分段，减少多线程同时计数时的 CAS 竞争；分段之间间隔一个缓存行，避免伪共享。
+ *
+ * @author coderyong
+ */
+final class StripedCounter {
+
+    private static final int STRIPES = 8;
+    /**
+     * 分段间隔（8 个 long，即 64 字节）
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray mCells = new AtomicLongArray(STRIPES * PADDING);
+
+    void increment() {
+        add(1);
+    }
+
+    void add(long x) {
+        int index = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+        mCells.getAndAdd(index, x);
+    }
+
+    /**
+     * 当前计数，并发累加时为近似值
+     */
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += mCells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
@@ -4,6 +4,7 @@ import android.os.Handler;
 import android.os.Looper;
 
 import com.google.gson.reflect.TypeToken;
+import dev.yong.wheel.http.interceptor.ResponseCacheInterceptor;
 import dev.yong.wheel.utils.JSON;
 import dev.yong.wheel.utils.Logger;
 
@@ -16,6 +17,7 @@ import java.util.Objects;
 
 import okhttp3.Call;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 /**
  * @author coderyong
@@ -23,12 +25,41 @@ import okhttp3.Response;
 public interface Callback<T> extends okhttp3.Callback {
 
     @Override
+    @SuppressWarnings("unchecked")
     default void onResponse(@NotNull Call call, @NotNull Response response) {
         if (response.isSuccessful()) {
             try {
-                //responseBody.string()只能在非UI线程中调用
-                String body = Objects.requireNonNull(response.body()).string();
-                Result.call(this, parse(body));
+                Type type = findCallbackGenericType();
+                //内存缓存命中时无需读取及解析响应数据
+                T cached = (T) ResponseCacheInterceptor.getCached(response, type);
+                if (cached != null) {
+                    //未读取的响应体需要关闭，否则连接无法归还连接池
+                    response.close();
+                    Result.call(this, cached);
+                    return;
+                }
+                ResponseBody body = Objects.requireNonNull(response.body());
+                T result;
+                long length;
+                if (type == String.class
+                        || getClass().getMethod("parse", String.class).getDeclaringClass() != Callback.class) {
+                    //String类型或自定义了parse(String)时读取完整的响应数据
+                    //responseBody.string()只能在非UI线程中调用
+                    String string = body.string();
+                    result = parse(string);
+                    length = string.length();
+                } else {
+                    //直接从响应流解析，无需先将完整的响应数据读取为字符串
+                    CountingReader reader = new CountingReader(body.charStream());
+                    try {
+                        result = JSON.fromJson(reader, type);
+                    } finally {
+                        body.close();
+                    }
+                    length = reader.count();
+                }
+                ResponseCacheInterceptor.putCached(response, type, result, length * 2L);
+                Result.call(this, result);
             } catch (Exception e) {
                 onFailure(call, new IOException(e));
             }
@@ -0,0 +1,51 @@
+package dev.yong.wheel.http;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 统计已读取字符数的字符流，用于流式解析后估算响应数据大小
+ *
+ * @author coderyong
+ */
+final class CountingReader extends FilterReader {
+
+    private long mCount;
+
+    CountingReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = super.read();
+        if (c != -1) {
+            mCount++;
+        }
+        return c;
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) {
+            mCount += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        mCount += skipped;
+        return skipped;
+    }
+
+    /**
+     * 已读取的字符数
+     */
+    long count() {
+        return mCount;
+    }
+}
@@ -0,0 +1,284 @@
+package dev.yong.wheel.http;
+
+import androidx.annotation.NonNull;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+
+/**
+ * 相同请求合并
+ * <p>
+ * 请求方式、规范化后的链接（{@link Transfer#canonicalUrl(okhttp3.HttpUrl)}）、响应数据类型及指定请求头均相同的 GET/HEAD 请求，在前一个请求完成之前再次发起时不会重复请求网络，
+ * 而是共享同一个 {@link Call}；响应数据读取一次后为每个回调创建独立的 {@link ResponseBody}。
+ * 每个回调拥有独立的 {@link Call}，取消其中一个只会移除该回调，所有回调都取消后才取消网络请求。
+ *
+ * @author coderyong
+ */
+final class RequestCoalescer {
+
+    /**
+     * 默认参与比较的请求头
+     */
+    static final String[] DEFAULT_HEADERS = {"Authorization", "Cookie", "Accept", "Accept-Language", "Range"};
+
+    private final Map<String, Flight> mFlights = new HashMap<>();
+    private volatile String[] mHeaders = DEFAULT_HEADERS;
+
+    /**
+     * 设置参与比较的请求头，为空时使用 {@link #DEFAULT_HEADERS}
+     */
+    void setHeaders(String... headers) {
+        mHeaders = headers == null || headers.length == 0 ? DEFAULT_HEADERS : headers.clone();
+    }
+
+    /**
+     * 是否可以合并，只合并没有请求体的 GET/HEAD 请求
+     */
+    static boolean isCoalescible(Request request) {
+        String method = request.method();
+        return request.body() == null && ("GET".equals(method) || "HEAD".equals(method));
+    }
+
+    /**
+     * 发起请求，存在相同的进行中请求时加入该请求
+     */
+    void enqueue(OkHttpClient client, Request request, okhttp3.Callback callback) {
+        String key = key(request);
+        Flight flight;
+        Subscriber subscriber;
+        boolean start = false;
+        synchronized (mFlights) {
+            flight = mFlights.get(key);
+            if (flight == null) {
+                //共享请求不携带 tag，避免按某个回调的 tag 取消时影响其他回调
+                flight = new Flight(key, client, client.newCall(request.newBuilder().tag(null).build()));
+                mFlights.put(key, flight);
+                start = true;
+            }
+            subscriber = new Subscriber(flight, request, callback);
+            flight.mSubscribers.add(subscriber);
+        }
+        if (start) {
+            flight.mCall.enqueue(flight);
+        }
+    }
+
+    /**
+     * 根据 tag 取消合并中的请求回调
+     */
+    void cancel(Object tag) {
+        List<Subscriber> cancelled = new ArrayList<>();
+        synchronized (mFlights) {
+            for (Flight flight : mFlights.values()) {
+                for (Subscriber subscriber : flight.mSubscribers) {
+                    if (tag == subscriber.mRequest.tag()) {
+                        cancelled.add(subscriber);
+                    }
+                }
+            }
+        }
+        for (Subscriber subscriber : cancelled) {
+            subscriber.cancel();
+        }
+    }
+
+    private String key(Request request) {
+        StringBuilder key = new StringBuilder(request.method())
+                .append(' ')
+                .append(Transfer.canonicalUrl(request.url()));
+        //响应数据类型不同时解析结果不同，不能共享内存缓存的结果
+        Type type = request.tag(Type.class);
+        if (type != null) {
+            key.append('\n').append(type);
+        }
+        return key.append(Transfer.canonicalHeaders(request, mHeaders)).toString();
+    }
+
+    /**
+     * 进行中的网络请求
+     */
+    private final class Flight implements okhttp3.Callback {
+
+        private final String mKey;
+        private final OkHttpClient mClient;
+        private final Call mCall;
+        /**
+         * 由 {@link #mFlights} 的锁保护
+         */
+        private final List<Subscriber> mSubscribers = new ArrayList<>();
+
+        private Flight(String key, OkHttpClient client, Call call) {
+            mKey = key;
+            mClient = client;
+            mCall = call;
+        }
+
+        @Override
+        public void onResponse(@NotNull Call call, @NotNull Response response) {
+            List<Subscriber> subscribers = finish();
+            byte[] bytes;
+            ResponseBody body = response.body();
+            try {
+                bytes = body == null ? null : body.bytes();
+            } catch (IOException e) {
+                deliverFailure(subscribers, e);
+                return;
+            } finally {
+                response.close();
+            }
+            for (Subscriber subscriber : subscribers) {
+                Response.Builder builder = response.newBuilder();
+                if (bytes != null) {
+                    builder.body(ResponseBody.create(bytes, body.contentType()));
+                }
+                try {
+                    subscriber.mCallback.onResponse(subscriber, builder.build());
+                } catch (Exception e) {
+                    //单个回调异常不影响其他回调
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public void onFailure(@NotNull Call call, @NotNull IOException e) {
+            deliverFailure(finish(), e);
+        }
+
+        /**
+         * 请求完成，之后发起的相同请求将重新请求网络
+         *
+         * @return 未取消的回调
+         */
+        private List<Subscriber> finish() {
+            synchronized (mFlights) {
+                if (mFlights.get(mKey) == this) {
+                    mFlights.remove(mKey);
+                }
+                List<Subscriber> subscribers = new ArrayList<>(mSubscribers);
+                mSubscribers.clear();
+                return subscribers;
+            }
+        }
+
+        private void deliverFailure(List<Subscriber> subscribers, IOException e) {
+            for (Subscriber subscriber : subscribers) {
+                try {
+                    subscriber.mCallback.onFailure(subscriber, e);
+                } catch (RuntimeException re) {
+                    re.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * 移除回调，没有回调时取消网络请求
+         *
+         * @return 回调是否仍在等待结果
+         */
+        private boolean remove(Subscriber subscriber) {
+            boolean cancelCall;
+            synchronized (mFlights) {
+                if (!mSubscribers.remove(subscriber)) {
+                    return false;
+                }
+                cancelCall = mSubscribers.isEmpty();
+                if (cancelCall && mFlights.get(mKey) == this) {
+                    mFlights.remove(mKey);
+                }
+            }
+            if (cancelCall) {
+                mCall.cancel();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 单个回调对应的请求，取消时只移除该回调
+     */
+    private static final class Subscriber implements Call {
+
+        private final Flight mFlight;
+        private final Request mRequest;
+        private final okhttp3.Callback mCallback;
+        private volatile boolean mCanceled;
+
+        private Subscriber(Flight flight, Request request, okhttp3.Callback callback) {
+            mFlight = flight;
+            mRequest = request;
+            mCallback = callback;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return mRequest;
+        }
+
+        @NonNull
+        @Override
+        public Response execute() {
+            throw new IllegalStateException("Already Executed");
+        }
+
+        @Override
+        public void enqueue(@NonNull okhttp3.Callback responseCallback) {
+            throw new IllegalStateException("Already Executed");
+        }
+
+        @Override
+        public void cancel() {
+            mCanceled = true;
+            if (mFlight.remove(this)) {
+                //与 OkHttp 一致，取消后在请求线程池中回调失败
+                mFlight.mClient.dispatcher().executorService().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            mCallback.onFailure(Subscriber.this, new IOException("Canceled"));
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return mCanceled || mFlight.mCall.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return mFlight.mCall.timeout();
+        }
+
+        @NonNull
+        @Override
+        @SuppressWarnings("MethodDoesntCallSuperMethod")
+        public Call clone() {
+            return mFlight.mClient.newCall(mRequest);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Map;
 
 import okhttp3.Call;
@@ -26,6 +27,7 @@ public class Requester {
     private final Request.Builder mBuilder;
     private final RequestMethod mMethod;
     private RequestBody mBody;
+    private Boolean mCoalesce;
 
     public Requester(@NotNull String url, @NotNull RequestMethod method) {
         mUBuilder = HttpUrl.get(url).newBuilder();
@@ -94,6 +96,14 @@ public class Requester {
         return this;
     }
 
+    /**
+     * 是否与进行中的相同请求合并，只对 GET/HEAD 请求生效，未设置时使用 {@link Transfer#enableCoalescing(String...)} 的全局设置
+     */
+    public Requester coalesce(boolean coalesce) {
+        mCoalesce = coalesce;
+        return this;
+    }
+
     public void execute(okhttp3.Callback callback) {
         if (callback == null) {
             callback = new okhttp3.Callback() {
@@ -117,10 +127,21 @@ public class Requester {
                 }
             }
         }
-        Transfer.client().newCall(
-                mBuilder.url(mUBuilder.build())
-                        .method(mMethod.name(), mBody)
-                        .build()
-        ).enqueue(callback);
+        if (callback instanceof Callback) {
+            //响应数据类型，供内存缓存等拦截器使用
+            try {
+                mBuilder.tag(Type.class, ((Callback<?>) callback).findCallbackGenericType());
+            } catch (RuntimeException ignored) {
+            }
+        }
+        Request request = mBuilder.url(mUBuilder.build())
+                .method(mMethod.name(), mBody)
+                .build();
+        boolean coalesce = mCoalesce != null ? mCoalesce : Transfer.isCoalescing();
+        if (coalesce && RequestCoalescer.isCoalescible(request)) {
+            Transfer.coalescer().enqueue(Transfer.client(), request, callback);
+        } else {
+            Transfer.client().newCall(request).enqueue(callback);
+        }
     }
 }
@@ -1,11 +1,17 @@
 package dev.yong.wheel.http;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 
 import okhttp3.Call;
 import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
 
 public final class Transfer {
 
@@ -70,6 +76,94 @@ public final class Transfer {
         return TransferHolder.INSTANCE.mGlobalParams;
     }
 
+    /**
+     * 开启相同请求合并，同时发起的相同 GET/HEAD 请求共享一次网络请求，响应数据读取一次后分发给所有回调
+     * <p>
+     * 请求方式、规范化后的链接（查询参数排序）及 headers 中的请求头均相同时视为相同请求，
+     * 单个请求可通过 {@link Requester#coalesce(boolean)} 单独设置
+     *
+     * @param headers 参与比较的请求头，为空时使用 Authorization、Cookie、Accept、Accept-Language、Range
+     */
+    public static void enableCoalescing(String... headers) {
+        TransferHolder.INSTANCE.mCoalescer.setHeaders(headers);
+        TransferHolder.INSTANCE.mCoalescing = true;
+    }
+
+    /**
+     * 关闭相同请求合并，进行中的合并请求不受影响
+     */
+    public static void disableCoalescing() {
+        TransferHolder.INSTANCE.mCoalescing = false;
+    }
+
+    public static boolean isCoalescing() {
+        return TransferHolder.INSTANCE.mCoalescing;
+    }
+
+    static RequestCoalescer coalescer() {
+        return TransferHolder.INSTANCE.mCoalescer;
+    }
+
+    /**
+     * 拼接请求中 {@link RequestCoalescer#DEFAULT_HEADERS} 的请求头，与 {@link #canonicalUrl(HttpUrl)} 一起作为请求的 key，
+     * 区分不同用户、不同语言等的相同链接
+     */
+    public static String canonicalHeaders(Request request) {
+        return canonicalHeaders(request, RequestCoalescer.DEFAULT_HEADERS);
+    }
+
+    /**
+     * 是否为 {@link #canonicalHeaders(Request)} 中包含的请求头
+     */
+    public static boolean isKeyHeader(String name) {
+        for (String header : RequestCoalescer.DEFAULT_HEADERS) {
+            if (header.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String canonicalHeaders(Request request, String[] names) {
+        StringBuilder key = new StringBuilder();
+        for (String name : names) {
+            List<String> values = request.headers(name);
+            if (!values.isEmpty()) {
+                key.append('\n').append(name.toLowerCase(Locale.ENGLISH)).append(':');
+                for (String value : values) {
+                    key.append(value).append(',');
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 规范化链接，查询参数按名称排序（同名参数保持原有顺序），参数顺序不同的相同请求得到相同的链接，
+     * 用于缓存及请求合并的 key
+     */
+    public static HttpUrl canonicalUrl(HttpUrl url) {
+        if (url.querySize() <= 1) {
+            return url;
+        }
+        TreeMap<String, List<String>> parameters = new TreeMap<>();
+        for (int i = 0; i < url.querySize(); i++) {
+            List<String> values = parameters.get(url.queryParameterName(i));
+            if (values == null) {
+                values = new ArrayList<>();
+                parameters.put(url.queryParameterName(i), values);
+            }
+            values.add(url.queryParameterValue(i));
+        }
+        HttpUrl.Builder urlBuilder = url.newBuilder().query(null);
+        for (Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                urlBuilder.addQueryParameter(parameter.getKey(), value);
+            }
+        }
+        return urlBuilder.build();
+    }
+
     public static Requester with(String url, RequestMethod method) {
         return new Requester(url, method);
     }
@@ -103,6 +197,8 @@ public final class Transfer {
                 call.cancel();
             }
         }
+        //合并的请求不携带 tag，需单独取消对应的回调
+        TransferHolder.INSTANCE.mCoalescer.cancel(tag);
     }
 
     public static void cancelAll() {
@@ -112,6 +208,8 @@ public final class Transfer {
     private OkHttpClient mClient;
     private MediaType mMediaType;
     private Map<String, String> mGlobalParams;
+    private final RequestCoalescer mCoalescer = new RequestCoalescer();
+    private volatile boolean mCoalescing;
 
     private static class TransferHolder {
         private static final Transfer INSTANCE = new Transfer();
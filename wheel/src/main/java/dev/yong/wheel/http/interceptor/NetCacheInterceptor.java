@@ -1,11 +1,11 @@
 package dev.yong.wheel.http.interceptor;
 
+import dev.yong.wheel.http.Transfer;
+
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.util.TreeMap;
 
-import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -24,18 +24,8 @@ public interface NetCacheInterceptor extends Interceptor {
         Request request = chain.request();
         Response response = chain.proceed(request);
         if (onNetworkAvailable()) {
-            HttpUrl url = request.url();
-            TreeMap<String, String> parameters = new TreeMap<>();
-            for (int i = 0; i < url.querySize(); i++) {
-                parameters.put(url.queryParameterName(i), url.queryParameterValue(i));
-            }
-            HttpUrl.Builder urlBuilder = url.newBuilder();
-            for (String key : parameters.keySet()) {
-                urlBuilder.removeAllQueryParameters(key);
-                urlBuilder.addQueryParameter(key, parameters.get(key));
-            }
             return response.newBuilder()
-                    .request(request.newBuilder().url(urlBuilder.build()).build())
+                    .request(request.newBuilder().url(Transfer.canonicalUrl(request.url())).build())
                     .removeHeader("Pragma")
                     .header("Cache-Control", "public, max-age=" + onlineCacheTime())
                     .build();
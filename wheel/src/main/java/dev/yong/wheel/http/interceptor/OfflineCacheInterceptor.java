@@ -1,13 +1,13 @@
 package dev.yong.wheel.http.interceptor;
 
+import dev.yong.wheel.http.Transfer;
+
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.CacheControl;
-import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -27,18 +27,8 @@ public interface OfflineCacheInterceptor extends Interceptor {
         Request request = chain.request();
         if (!onNetworkUnavailable()) {
             //离线的时候的缓存的过期时间
-            HttpUrl url = request.url();
-            TreeMap<String, String> parameters = new TreeMap<>();
-            for (int i = 0; i < url.querySize(); i++) {
-                parameters.put(url.queryParameterName(i), url.queryParameterValue(i));
-            }
-            HttpUrl.Builder urlBuilder = url.newBuilder();
-            for (String key : parameters.keySet()) {
-                urlBuilder.removeAllQueryParameters(key);
-                urlBuilder.addQueryParameter(key, parameters.get(key));
-            }
             request = request.newBuilder()
-                    .url(urlBuilder.build())
+                    .url(Transfer.canonicalUrl(request.url()))
                     .cacheControl(
                             new CacheControl.Builder()
                                     .maxStale(offlineCacheTime(), TimeUnit.SECONDS)
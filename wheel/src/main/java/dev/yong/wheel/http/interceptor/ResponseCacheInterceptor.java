@@ -0,0 +1,205 @@
+package dev.yong.wheel.http.interceptor;
+
+import dev.yong.wheel.AppManager;
+import dev.yong.wheel.cache.MemoryCache;
+import dev.yong.wheel.http.Callback;
+import dev.yong.wheel.http.Transfer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 响应数据内存缓存拦截器
+ * <p>
+ * 缓存 {@link Callback} 解析后的响应数据，key 为规范化后的链接（{@link Transfer#canonicalUrl(HttpUrl)}）、
+ * 区分用户的请求头（{@link Transfer#canonicalHeaders(Request)}）及响应数据类型，
+ * 命中时直接返回不含响应体的响应，{@link Callback} 使用缓存的数据，跳过磁盘缓存、网络请求及 JSON 解析。
+ * 需通过 {@link okhttp3.OkHttpClient.Builder#addInterceptor(Interceptor)} 添加在 {@link NetCacheInterceptor}、
+ * {@link OfflineCacheInterceptor} 之前。
+ * <p>
+ * 只缓存使用 {@link Callback} 的 GET 请求，请求或响应包含 no-store、请求包含 no-cache、
+ * 响应的 Vary 包含 key 以外的请求头时不使用内存缓存；
+ * 命中时所有回调得到的是同一个对象，回调中不应修改。
+ * <p>
+ * 创建时向 {@link AppManager} 注册内存监听，不再使用（如重新创建 OkHttpClient）时需调用 {@link #release()}。
+ *
+ * @author coderyong
+ */
+@SuppressWarnings("unused")
+public class ResponseCacheInterceptor implements Interceptor {
+
+    /**
+     * 内存缓存命中时响应中添加的响应头
+     */
+    public static final String HEADER = "Wheel-Memory-Cache";
+
+    private final MemoryCache mCache;
+    private final long mMaxAge;
+
+    /**
+     * @param maxSize 内存缓存大小上限（按响应体字符数估算的字节数）
+     * @param maxAge  缓存有效期
+     * @param unit    时间单位{@link TimeUnit}
+     */
+    public ResponseCacheInterceptor(long maxSize, long maxAge, TimeUnit unit) {
+        mCache = new MemoryCache(maxSize, new MemoryCache.Weigher() {
+            @Override
+            public int sizeOf(String key, Object value) {
+                return (int) Math.min(Integer.MAX_VALUE, 32L + key.length() * 2L + ((Entry) value).weight);
+            }
+        });
+        mMaxAge = unit.toMillis(maxAge);
+        AppManager.getInstance().addMemoryListener(mCache);
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        Request request = chain.request();
+        Type type = request.tag(Type.class);
+        if (type == null || !"GET".equals(request.method())
+                || request.cacheControl().noCache() || request.cacheControl().noStore()) {
+            return chain.proceed(request);
+        }
+        String key = key(request, type);
+        Entry entry = (Entry) mCache.get(key);
+        if (entry != null && entry.expireAt > System.currentTimeMillis()) {
+            long now = System.currentTimeMillis();
+            return new Response.Builder()
+                    .request(request.newBuilder().tag(Entry.class, entry).build())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(200)
+                    .message("OK")
+                    .header(HEADER, "HIT")
+                    .body(ResponseBody.create(new byte[0], null))
+                    .sentRequestAtMillis(now)
+                    .receivedResponseAtMillis(now)
+                    .build();
+        } else if (entry != null) {
+            mCache.remove(key);
+        }
+        Response response = chain.proceed(request);
+        if (!response.isSuccessful() || response.cacheControl().noStore() || !isVaryCovered(response)) {
+            return response;
+        }
+        //解析完成后由 Callback 通过 Slot 写入缓存
+        return response.newBuilder()
+                .request(response.request().newBuilder().tag(Slot.class, new Slot(this, key, type)).build())
+                .build();
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param request 请求，请求头需与缓存时一致
+     * @param type    响应数据类型
+     */
+    public void remove(@NotNull Request request, @NotNull Type type) {
+        mCache.remove(key(request, type));
+    }
+
+    public void clear() {
+        mCache.clear();
+    }
+
+    /**
+     * 移除内存监听并清空缓存，之后不应再使用该拦截器
+     */
+    public void release() {
+        AppManager.getInstance().removeMemoryListener(mCache);
+        mCache.clear();
+    }
+
+    /**
+     * 获取内存缓存中已解析的响应数据
+     *
+     * @param type 响应数据类型
+     * @return 未命中时返回 null
+     */
+    @Nullable
+    public static Object getCached(@NotNull Response response, @Nullable Type type) {
+        Entry entry = response.request().tag(Entry.class);
+        return entry != null && entry.type.equals(type) ? entry.value : null;
+    }
+
+    /**
+     * 保存解析后的响应数据，响应不是经过该拦截器的请求时忽略
+     *
+     * @param type   响应数据类型
+     * @param value  解析后的数据
+     * @param weight 估算的数据大小
+     */
+    public static void putCached(@NotNull Response response, @Nullable Type type, @Nullable Object value, long weight) {
+        Slot slot = response.request().tag(Slot.class);
+        if (slot == null || value == null || !slot.type.equals(type)) {
+            return;
+        }
+        Entry entry = new Entry(slot.type, value, System.currentTimeMillis() + slot.interceptor.mMaxAge,
+                (int) Math.min(Integer.MAX_VALUE, Math.max(0, weight)));
+        slot.interceptor.mCache.put(slot.key, entry);
+    }
+
+    private static String key(Request request, Type type) {
+        return Transfer.canonicalUrl(request.url()) + "\n" + type + Transfer.canonicalHeaders(request);
+    }
+
+    /**
+     * 响应的 Vary 中的请求头是否都已包含在 key 中
+     */
+    private static boolean isVaryCovered(Response response) {
+        for (String vary : response.headers("Vary")) {
+            for (String name : vary.split(",")) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!Transfer.isKeyHeader(name)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static class Entry {
+
+        private final Type type;
+        private final Object value;
+        private final long expireAt;
+        private final int weight;
+
+        private Entry(Type type, Object value, long expireAt, int weight) {
+            this.type = type;
+            this.value = value;
+            this.expireAt = expireAt;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 未命中的请求对应的缓存位置
+     */
+    private static class Slot {
+
+        private final ResponseCacheInterceptor interceptor;
+        private final String key;
+        private final Type type;
+
+        private Slot(ResponseCacheInterceptor interceptor, String key, Type type) {
+            this.interceptor = interceptor;
+            this.key = key;
+            this.type = type;
+        }
+    }
+}
@@ -3,11 +3,13 @@
 package dev.yong.wheel.utils
 
 import android.text.TextUtils
+import com.google.gson.Gson
 import com.google.gson.GsonBuilder
 import com.google.gson.JsonDeserializationContext
 import com.google.gson.JsonDeserializer
 import com.google.gson.JsonElement
 import com.google.gson.reflect.TypeToken
+import java.io.Reader
 import java.lang.reflect.Type
 import java.util.*
 
@@ -54,11 +56,13 @@ object JSON {
         } else listOf(GsonBuilder().create().fromJson(jsonStr, typeToken.type))
     }
 
-    @JvmStatic
-    fun <T> fromJson(jsonStr: String?, type: Type): T {
+    /**
+     * 解析使用的 Gson，配置不变，创建一次后复用（Gson 线程安全）
+     */
+    private val mGson: Gson by lazy {
         val typeToken: TypeToken<TreeMap<String, Any>> =
             object : TypeToken<TreeMap<String, Any>>() {}
-        return GsonBuilder()
+        GsonBuilder()
             .registerTypeAdapter(
                 Int::class.java,
                 JsonDeserializer { json: JsonElement, _: Type, _: JsonDeserializationContext ->
@@ -106,7 +110,24 @@ object JSON {
                     }
                     map
                 } as JsonDeserializer<TreeMap<String, Any>>)
-            .create().fromJson(jsonStr, type)
+            .create()
+    }
+
+    @JvmStatic
+    fun <T> fromJson(jsonStr: String?, type: Type): T {
+        return mGson.fromJson(jsonStr, type)
+    }
+
+    /**
+     * 从字符流解析为 T 实例，由 Gson 的 JsonReader 边读取边解析，无需先将完整的 JSON 读取为字符串
+     *
+     * @param reader JSON字符流，由调用方关闭
+     * @param type   T 的类型
+     * @return T 实例，字符流为空时返回 null
+     */
+    @JvmStatic
+    fun <T> fromJson(reader: Reader, type: Type): T {
+        return mGson.fromJson(reader, type)
     }
 
     @JvmStatic
@@ -0,0 +1,219 @@
+package dev.yong.wheel.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link FileCache} 多线程写入、读取、删除及淘汰后，索引、日志与缓存文件保持一致
+ *
+ * @author coderyong
+ */
+@RunWith(Parameterized.class)
+public class FileCacheConcurrencyTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int KEY_COUNT = 128;
+    private static final int MAX_COUNT = 64;
+    private static final int OPERATIONS = 2000;
+
+    @Parameterized.Parameters(name = "threads={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{1}, {2}, {4}, {8}});
+    }
+
+    private final int mThreads;
+    private File mDir;
+
+    public FileCacheConcurrencyTest(int threads) {
+        mThreads = threads;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("file-cache", "");
+        assertTrue(mDir.delete());
+        assertTrue(mDir.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        delete(mDir);
+    }
+
+    @Test
+    public void journalMatchesIndex() throws Exception {
+        final FileCache cache = new FileCache(mDir, Long.MAX_VALUE, MAX_COUNT, true);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < mThreads; i++) {
+            final Random random = new Random(i);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int op = 0; op < OPERATIONS; op++) {
+                            String key = "key" + random.nextInt(KEY_COUNT);
+                            int action = random.nextInt(10);
+                            if (action < 5) {
+                                cache.put(key, value(key, random.nextInt(512)), -1, TimeUnit.MILLISECONDS);
+                            } else if (action < 9) {
+                                assertValue(key, cache.getByte(key));
+                            } else {
+                                cache.remove(key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        //重新读取日志得到的数据与当前实例一致，且没有残留的缓存文件
+        FileCache reopened = new FileCache(mDir, Long.MAX_VALUE, MAX_COUNT, true);
+        int count = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "key" + i;
+            byte[] expected = cache.getByte(key);
+            byte[] actual = reopened.getByte(key);
+            assertValue(key, expected);
+            if (expected == null) {
+                assertNull(key, actual);
+            } else {
+                assertArrayEquals(key, expected, actual);
+                count++;
+            }
+        }
+        assertTrue(count <= MAX_COUNT);
+        assertTrue(cacheFileCount() <= MAX_COUNT);
+    }
+
+    @Test
+    public void compactionKeepsLatestValue() throws Exception {
+        final FileCache cache = new FileCache(mDir, Long.MAX_VALUE, Integer.MAX_VALUE, true);
+        cache.setSegmentThreshold(64 * 1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < mThreads; i++) {
+            final Random random = new Random(i);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        //反复覆盖少量 key，分段中的无效数据不断增加，触发后台合并
+                        for (int op = 0; op < 5000; op++) {
+                            String key = "key" + random.nextInt(KEY_COUNT);
+                            cache.put(key, value(key, 512 + random.nextInt(512)), -1, TimeUnit.MILLISECONDS);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        awaitCompaction(cache);
+        byte[][] expected = new byte[KEY_COUNT][];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = cache.getByte("key" + i);
+            assertValue("key" + i, expected[i]);
+        }
+        cache.close();
+
+        //重新加载时每个 key 恢复最后写入的数据，而不是合并复制的旧数据
+        FileCache reopened = new FileCache(mDir, Long.MAX_VALUE, Integer.MAX_VALUE, true);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals("key" + i, expected[i], reopened.getByte("key" + i));
+        }
+    }
+
+    private static void awaitCompaction(FileCache cache) throws Exception {
+        Field field = FileCache.class.getDeclaredField("mCompacting");
+        field.setAccessible(true);
+        AtomicBoolean compacting = (AtomicBoolean) field.get(cache);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (compacting.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static byte[] value(String key, int padding) {
+        StringBuilder builder = new StringBuilder(key).append(':');
+        for (int i = 0; i < padding; i++) {
+            builder.append('v');
+        }
+        return builder.toString().getBytes(UTF_8);
+    }
+
+    private static void assertValue(String key, byte[] value) {
+        if (value != null) {
+            assertTrue(key, new String(value, UTF_8).startsWith(key + ":"));
+        }
+    }
+
+    private int cacheFileCount() {
+        int count = 0;
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().matches("[0-9a-f]{32}(_\\d+)?")) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
@@ -0,0 +1,92 @@
+package dev.yong.wheel.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MappedPreferences} 单元测试
+ *
+ * @author coderyong
+ */
+public class MappedPreferencesTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("mapped", ".kv");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        mFile.delete();
+    }
+
+    @Test
+    public void writeAcrossPageBoundary() {
+        String value = repeat('v', 100);
+        MappedPreferences preferences = new MappedPreferences(mFile);
+        for (int i = 0; i < 100; i++) {
+            preferences.edit().putString("key" + i, value + i).apply();
+        }
+        assertTrue(mFile.length() > 4096);
+        assertValues(preferences, value);
+        assertValues(new MappedPreferences(mFile), value);
+    }
+
+    @Test
+    public void overwriteAcrossPageBoundary() {
+        MappedPreferences preferences = new MappedPreferences(mFile);
+        //反复覆盖同一批 key，触发压缩
+        for (int round = 0; round < 20; round++) {
+            String value = repeat((char) ('a' + round), 100);
+            for (int i = 0; i < 10; i++) {
+                preferences.edit().putString("key" + i, value + i).apply();
+            }
+        }
+        String value = repeat((char) ('a' + 19), 100);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(value + i, preferences.getString("key" + i, null));
+        }
+        MappedPreferences reopened = new MappedPreferences(mFile);
+        assertEquals(10, reopened.getAll().size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(value + i, reopened.getString("key" + i, null));
+        }
+    }
+
+    @Test
+    public void closeAndReopen() {
+        MappedPreferences preferences = new MappedPreferences(mFile);
+        assertTrue(preferences.edit().putString("key", "value").commit());
+        preferences.close();
+        assertEquals("value", preferences.getString("key", null));
+        assertFalse(preferences.edit().putString("key", "changed").commit());
+        assertEquals("value", new MappedPreferences(mFile).getString("key", null));
+    }
+
+    private static void assertValues(MappedPreferences preferences, String value) {
+        assertEquals(100, preferences.getAll().size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(value + i, preferences.getString("key" + i, null));
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}